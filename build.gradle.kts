@@ -1,4 +1,5 @@
 import org.checkerframework.gradle.plugin.CheckerFrameworkExtension
+import org.checkerframework.gradle.plugin.CheckerFrameworkTaskExtension
 
 plugins {
     id("java")
@@ -6,6 +7,7 @@ plugins {
     id("com.github.ben-manes.versions") version "0.51.0"
     id("io.freefair.lombok") version "8.10"
     id("org.checkerframework") version "0.6.44"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "mx.oscarvarto"
@@ -61,6 +63,33 @@ configure<CheckerFrameworkExtension> {
     )
 }
 
+// StringColumns uses the Vector API when it is available, which is still an incubator module
+val vectorModule = "--add-modules=jdk.incubator.vector"
+
+// Only VectorStringKernels, in the main sources, links against the module. Tests and benchmarks
+// only call it, which compiles without the module, so they compile without the incubator warning.
+// javac has no -Xlint key for that warning, so compileJava still prints it once.
+tasks.compileJava {
+    options.compilerArgs.add(vectorModule)
+}
+
+// JMH sources and the code generated from them are not checked for nullness
+tasks.withType<JavaCompile>().matching { it.name.contains("jmh", ignoreCase = true) }.configureEach {
+    extensions.configure<CheckerFrameworkTaskExtension> {
+        skipCheckerFramework = true
+    }
+}
+
+// ./gradlew jmh [-PjmhIncludes=StringUtilsBenchmark] writes build/reports/jmh/results.json
+jmh {
+    jmhVersion = "1.37"
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+    findProperty("jmhIncludes")?.let { includes = listOf(it.toString()) }
+    jvmArgsAppend = listOf(vectorModule)
+}
+
 tasks.test {
     useJUnitPlatform()
+    jvmArgs(vectorModule)
 }
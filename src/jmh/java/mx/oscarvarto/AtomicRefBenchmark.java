@@ -0,0 +1,71 @@
+package mx.oscarvarto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static fj.Ord.stringOrd;
+
+// Shared read-mostly state updated from all cores: a fj.data.Set swapped under a lock, against a
+// HashTrieSet in an AtomicRef updated with compare-and-set, one at a time or batched.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class AtomicRefBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    String[] keys;
+    AtomicRef<HashTrieSet<String>> trieSet;
+    fj.data.Set<String> treeSet;
+    final Object lock = new Object();
+
+    @Setup
+    public void setup() {
+        keys = BenchmarkData.strings(size * 2, 0.0, 16);
+        var set = HashTrieSet.<String>empty();
+        var tree = fj.data.Set.empty(stringOrd);
+        for (int i = 0; i < size; i++) {
+            set = set.insert(keys[i]);
+            tree = tree.insert(keys[i]);
+        }
+        trieSet = AtomicRef.atomicRef(set);
+        treeSet = tree;
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    public boolean lockedTreeSetUpdate() {
+        String key = randomKey();
+        synchronized (lock) {
+            treeSet = treeSet.member(key) ? treeSet.delete(key) : treeSet.insert(key);
+            return treeSet.isEmpty();
+        }
+    }
+
+    @Benchmark
+    public HashTrieSet<String> casUpdate() {
+        String key = randomKey();
+        return trieSet.update(s -> s.member(key) ? s.delete(key) : s.insert(key));
+    }
+
+    @Benchmark
+    public HashTrieSet<String> batchedUpdate() {
+        String key = randomKey();
+        return trieSet.updateBatched(s -> s.member(key) ? s.delete(key) : s.insert(key));
+    }
+
+    @Benchmark
+    public boolean read() {
+        return trieSet.get().member(randomKey());
+    }
+}
@@ -0,0 +1,52 @@
+package mx.oscarvarto;
+
+import java.util.SplittableRandom;
+
+// Deterministic inputs shared by the benchmarks, so that runs are comparable
+final class BenchmarkData {
+
+    private static final long SEED = 42L;
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 -()";
+
+    private BenchmarkData() {
+    }
+
+    static SplittableRandom random() {
+        return new SplittableRandom(SEED);
+    }
+
+    static String randomString(SplittableRandom random, int length) {
+        var chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(chars);
+    }
+
+    static String randomDigits(SplittableRandom random, int length) {
+        var chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(chars);
+    }
+
+    // size strings of the given length, a nullRatio fraction of them being null
+    static String[] strings(int size, double nullRatio, int length) {
+        var random = random();
+        var strings = new String[size];
+        for (int i = 0; i < size; i++) {
+            strings[i] = random.nextDouble() < nullRatio ? null : randomString(random, length);
+        }
+        return strings;
+    }
+
+    static Long[] longs(int size, double nullRatio) {
+        var random = random();
+        var longs = new Long[size];
+        for (int i = 0; i < size; i++) {
+            longs[i] = random.nextDouble() < nullRatio ? null : random.nextLong();
+        }
+        return longs;
+    }
+}
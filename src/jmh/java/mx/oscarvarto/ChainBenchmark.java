@@ -0,0 +1,69 @@
+package mx.oscarvarto;
+
+import fj.F;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+// Nested F.andThen vs a flat Chain of the same stages, over a column of ints.
+// Stages cycle through a few different lambdas, as generated chains do, so that call sites see
+// more than one target.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainBenchmark {
+
+    @Param({"4", "64", "1024"})
+    int stages;
+
+    @Param({"1000"})
+    int size;
+
+    Integer[] column;
+    F<Integer, Integer> andThen;
+    Chain<Integer, Integer> chain;
+
+    @Setup
+    public void setup() {
+        var random = BenchmarkData.random();
+        column = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            column[i] = random.nextInt(1_000);
+        }
+        var fs = new ArrayList<F<Integer, Integer>>(stages);
+        for (int i = 0; i < stages; i++) {
+            int k = i;
+            fs.add(switch (i % 4) {
+                case 0 -> n -> n + k;
+                case 1 -> n -> n ^ k;
+                case 2 -> n -> n * 3 % 1_000_003;
+                default -> n -> n - k;
+            });
+        }
+        F<Integer, Integer> composed = fs.get(0);
+        for (int i = 1; i < stages; i++) {
+            composed = composed.andThen(fs.get(i));
+        }
+        andThen = composed;
+        chain = Chain.chain(fs);
+    }
+
+    @Benchmark
+    public void andThen(Blackhole bh) {
+        for (Integer n : column) {
+            bh.consume(andThen.f(n));
+        }
+    }
+
+    @Benchmark
+    public void chain(Blackhole bh) {
+        for (Integer n : column) {
+            bh.consume(chain.f(n));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package mx.oscarvarto;
+
+import fj.data.List;
+import fj.data.Validation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static mx.oscarvarto.Codec.*;
+
+// Codec vs Java serialization, writing and reading back a checkpoint of parsed dates and of
+// validation outcomes. fj lists are not Serializable, so Java serialization gets the same data as
+// java.util Lists (of records, for the validations). The file variants read through a mapping.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    record Outcome(boolean valid, String error, int value) implements Serializable {
+    }
+
+    static final Codec<List<LocalDate>> datesCodec = listCodec(localDateCodec);
+    static final Codec<List<Validation<String, Integer>>> outcomesCodec = listCodec(validationCodec(stringCodec, intCodec));
+
+    @Param({"100000"})
+    int size;
+
+    List<LocalDate> dates;
+    List<Validation<String, Integer>> outcomes;
+    ArrayList<LocalDate> javaDates;
+    ArrayList<Outcome> javaOutcomes;
+    Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        var random = BenchmarkData.random();
+        var dateBuffer = new List.Buffer<LocalDate>();
+        var outcomeBuffer = new List.Buffer<Validation<String, Integer>>();
+        javaDates = new ArrayList<>(size);
+        javaOutcomes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            var date = LocalDate.ofEpochDay(random.nextInt(20_000));
+            dateBuffer.snoc(date);
+            javaDates.add(date);
+            int age = random.nextInt(-10, 150);
+            var error = age < 0 ? "Age cannot be negative" : age > 130 ? "Age cannot be bigger than 130 years" : "";
+            outcomeBuffer.snoc(error.isEmpty() ? Validation.success(age) : Validation.fail(error));
+            javaOutcomes.add(new Outcome(error.isEmpty(), error, age));
+        }
+        dates = dateBuffer.toList();
+        outcomes = outcomeBuffer.toList();
+        file = Files.createTempFile("codec", ".bin");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static <A> A codecRoundTrip(Codec<A> codec, A a) {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new BinaryOutput(Channels.newChannel(bytes))) {
+            out.write(codec, a);
+        }
+        return new BinaryInput(ByteBuffer.wrap(bytes.toByteArray())).read(codec);
+    }
+
+    private static Object javaRoundTrip(Object o) throws IOException, ClassNotFoundException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public List<LocalDate> codecDates() {
+        return codecRoundTrip(datesCodec, dates);
+    }
+
+    @Benchmark
+    public Object javaDates() throws IOException, ClassNotFoundException {
+        return javaRoundTrip(javaDates);
+    }
+
+    @Benchmark
+    public List<Validation<String, Integer>> codecOutcomes() {
+        return codecRoundTrip(outcomesCodec, outcomes);
+    }
+
+    @Benchmark
+    public Object javaOutcomes() throws IOException, ClassNotFoundException {
+        return javaRoundTrip(javaOutcomes);
+    }
+
+    @Benchmark
+    public List<Validation<String, Integer>> codecOutcomesFile() throws IOException {
+        Codec.write(file, outcomesCodec, outcomes);
+        return Codec.read(file, outcomesCodec);
+    }
+
+    @Benchmark
+    public Object javaOutcomesFile() throws IOException, ClassNotFoundException {
+        try (var out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeObject(javaOutcomes);
+        }
+        try (var in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package mx.oscarvarto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static fj.Ord.stringOrd;
+import static mx.oscarvarto.StringUtils.caseInsensitiveStringOrd;
+
+// Compares the fj.data.List/Set conversions in CollectionUtils with the equivalent
+// java.util collections, to see what the functional wrappers cost.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionUtilsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int size;
+
+    @Param({"0.0", "0.1", "0.5"})
+    double nullRatio;
+
+    @Param({"8", "64"})
+    int stringLength;
+
+    String[] array;
+    java.util.List<String> list;
+    fj.data.List<String> fjList;
+    Set<String> set;
+    fj.data.Set<String> ignoreCaseTreeSet;
+    IgnoreCaseStringSet ignoreCaseHashSet;
+    String[] lookups;
+
+    @Setup
+    public void setup() {
+        array = BenchmarkData.strings(size, nullRatio, stringLength);
+        list = Arrays.asList(array);
+        fjList = CollectionUtils.listFromArray(array);
+        // fj.data.Set cannot hold nulls, so sets are always built from the non null strings
+        set = new HashSet<>(Arrays.stream(array).filter(Objects::nonNull).toList());
+        ignoreCaseTreeSet = CollectionUtils.setFromJava(caseInsensitiveStringOrd, set);
+        ignoreCaseHashSet = IgnoreCaseStringSet.fromJava(set);
+        // Half hits (with a different case), half misses
+        lookups = Arrays.stream(array)
+                .filter(Objects::nonNull)
+                .map(s -> s.length() % 2 == 0 ? s.toUpperCase() : s + "?")
+                .toArray(String[]::new);
+    }
+
+    @Benchmark
+    public fj.data.List<String> listFromIterable() {
+        return CollectionUtils.listFromIterable(list);
+    }
+
+    @Benchmark
+    public fj.data.List<String> listFromArray() {
+        return CollectionUtils.listFromArray(array);
+    }
+
+    @Benchmark
+    public fj.data.List<String> listFromFjList() {
+        return CollectionUtils.listFromIterable(fjList);
+    }
+
+    @Benchmark
+    public java.util.List<String> nonNullList() {
+        return CollectionUtils.nonNullList(list);
+    }
+
+    @Benchmark
+    public java.util.List<String> javaListWithoutNulls() {
+        var result = new ArrayList<String>(array.length);
+        for (String s : array) {
+            if (s != null) {
+                result.add(s);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public fj.data.Set<String> setFromJava() {
+        return CollectionUtils.setFromJava(stringOrd, set);
+    }
+
+    @Benchmark
+    public fj.data.Set<String> setFromJavaIgnoreCase() {
+        return CollectionUtils.setFromJava(caseInsensitiveStringOrd, set);
+    }
+
+    @Benchmark
+    public Set<String> javaTreeSet() {
+        return new TreeSet<>(set);
+    }
+
+    @Benchmark
+    public Set<String> javaTreeSetIgnoreCase() {
+        var result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        result.addAll(set);
+        return result;
+    }
+
+    @Benchmark
+    public Set<String> javaHashSet() {
+        return new HashSet<>(set);
+    }
+
+    @Benchmark
+    public IgnoreCaseStringSet ignoreCaseHashSet() {
+        return IgnoreCaseStringSet.nonBlank(set);
+    }
+
+    @Benchmark
+    public int ignoreCaseTreeSetMember() {
+        int found = 0;
+        for (String s : lookups) {
+            found += ignoreCaseTreeSet.member(s) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int ignoreCaseHashSetMember() {
+        int found = 0;
+        for (String s : lookups) {
+            found += ignoreCaseHashSet.member(s) ? 1 : 0;
+        }
+        return found;
+    }
+}
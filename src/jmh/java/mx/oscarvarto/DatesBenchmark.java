@@ -0,0 +1,65 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.Try;
+import fj.data.Validation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+
+// Try wrapped LocalDate.parse vs Dates, over columns with a growing share of malformed dates
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatesBenchmark {
+
+    static final F<String, Validation<DateTimeParseException, LocalDate>> tryReadDate =
+            Try.<String, LocalDate, DateTimeParseException>f(s -> LocalDate.parse(s, ISO_LOCAL_DATE));
+
+    @Param({"10000"})
+    int size;
+
+    @Param({"0.0", "0.1", "0.3"})
+    double badRatio;
+
+    String[] column;
+
+    @Setup
+    public void setup() {
+        var random = BenchmarkData.random();
+        column = new String[size];
+        for (int i = 0; i < size; i++) {
+            var date = LocalDate.ofEpochDay(random.nextInt(20_000));
+            column[i] = random.nextDouble() < badRatio
+                    ? date.getDayOfMonth() + "/" + date.getMonthValue() + "/" + date.getYear()
+                    : date.toString();
+        }
+    }
+
+    @Benchmark
+    public void tryParse(Blackhole bh) {
+        for (String s : column) {
+            bh.consume(tryReadDate.f(s).toOption());
+        }
+    }
+
+    @Benchmark
+    public void readIsoLocalDate(Blackhole bh) {
+        for (String s : column) {
+            bh.consume(Dates.readIsoLocalDate(s));
+        }
+    }
+
+    @Benchmark
+    public LocalDate[] readIsoLocalDates() {
+        return Dates.readIsoLocalDates(column);
+    }
+}
@@ -0,0 +1,67 @@
+package mx.oscarvarto;
+
+import fj.data.List;
+import fj.data.Set;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static mx.oscarvarto.StringUtils.caseInsensitiveStringOrd;
+
+// Sorting names with caseInsensitiveStringOrd (folding on every comparison) vs folding each name
+// once into a collation key
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IgnoreCaseSortBenchmark {
+
+    @Param({"10000", "1000000"})
+    int size;
+
+    String[] names;
+    java.util.List<String> nameList;
+
+    @Setup
+    public void setup() {
+        names = BenchmarkData.strings(size, 0.0, 16);
+        nameList = Arrays.asList(names);
+    }
+
+    @Benchmark
+    public List<String> listSortWithOrd() {
+        return List.iterableList(nameList).sort(caseInsensitiveStringOrd);
+    }
+
+    @Benchmark
+    public String[] parallelSortCaseInsensitiveOrder() {
+        var copy = names.clone();
+        Arrays.parallelSort(copy, String.CASE_INSENSITIVE_ORDER);
+        return copy;
+    }
+
+    @Benchmark
+    public List<String> collationKeys() {
+        return IgnoreCaseSort.sorted(nameList);
+    }
+
+    @Benchmark
+    public String[] collationKeysInPlace() {
+        var copy = names.clone();
+        IgnoreCaseSort.sort(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public Set<String> setWithOrd() {
+        return Set.iterableSet(caseInsensitiveStringOrd, nameList);
+    }
+
+    @Benchmark
+    public Set<String> collationKeySet() {
+        return IgnoreCaseSort.set(nameList);
+    }
+}
@@ -0,0 +1,92 @@
+package mx.oscarvarto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Files.lines (decode every line, split into Strings) vs MappedLines, sequential and in parallel,
+// counting the rows of a CSV file with a valid date and a phone number
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedLinesBenchmark {
+
+    @Param({"1000000"})
+    int rows;
+
+    Path file;
+    MappedLines mapped;
+    int parts;
+
+    @Setup
+    public void setup() throws IOException {
+        var random = BenchmarkData.random();
+        file = Files.createTempFile("mapped-lines", ".csv");
+        try (var out = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < rows; i++) {
+                var date = LocalDate.ofEpochDay(random.nextInt(20_000));
+                out.write(i + "," + BenchmarkData.randomString(random, 20) + ","
+                        + (random.nextInt(10) == 0 ? "n/a" : BenchmarkData.randomDigits(random, 10)) + ","
+                        + (random.nextInt(10) == 0 ? date.getDayOfMonth() + "/" + date.getMonthValue() : date.toString()));
+                out.newLine();
+            }
+        }
+        mapped = MappedLines.open(file);
+        parts = Runtime.getRuntime().availableProcessors();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mapped.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long filesLines() {
+        try (var lines = Files.lines(file)) {
+            return lines.map(line -> line.split(","))
+                    .filter(fields -> StringUtils.digitsOnlyAsLong(fields[2]) != StringUtils.NO_DIGITS)
+                    .filter(fields -> Dates.readIsoLocalDate(fields[3]).isSome())
+                    .count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public long mappedLines() {
+        long[] count = {0};
+        mapped.forEach(line -> {
+            if (valid(line)) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    @Benchmark
+    public long mappedLinesParallel() {
+        return mapped.parallel(parts, split -> {
+            long[] count = {0};
+            split.forEach(line -> {
+                if (valid(line)) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        }).stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static boolean valid(MappedLines.Line line) {
+        return StringUtils.digitsOnlyAsLong(line.field(2)) != StringUtils.NO_DIGITS
+                && Dates.readIsoLocalDate(line.field(3)).isSome();
+    }
+}
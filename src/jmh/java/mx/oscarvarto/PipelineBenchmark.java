@@ -0,0 +1,57 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.List;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// The 4 step pipeline of HelloPipelineTest: one list per step vs a fused Pipeline,
+// sequential and on the common ForkJoinPool
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int size;
+
+    List<Integer> input;
+    F<List<Integer>, List<Integer>> listSteps;
+    Pipeline<Integer, Integer> fused;
+    Pipeline<Integer, Integer> fusedParallel;
+
+    @Setup
+    public void setup() {
+        input = List.range(0, size);
+        F<List<Integer>, List<Integer>> step1 = ns -> ns.map(n -> n + 1);
+        F<List<Integer>, List<Integer>> step2 = ns -> ns.filter(n -> n % 3 != 0);
+        F<List<Integer>, List<Integer>> step3 = ns -> ns.map(n -> n * 2);
+        F<List<Integer>, List<Integer>> step4 = ns -> ns.map(n -> n - 4);
+        listSteps = step1.andThen(step2).andThen(step3).andThen(step4);
+        fused = Pipeline.<Integer>pipeline()
+                .map(n -> n + 1)
+                .filter(n -> n % 3 != 0)
+                .map(n -> n * 2)
+                .map(n -> n - 4);
+        fusedParallel = fused.parallel();
+    }
+
+    @Benchmark
+    public List<Integer> listPerStep() {
+        return listSteps.f(input);
+    }
+
+    @Benchmark
+    public List<Integer> fusedPipeline() {
+        return fused.run(input);
+    }
+
+    @Benchmark
+    public List<Integer> fusedParallelPipeline() {
+        return fusedParallel.run(input);
+    }
+}
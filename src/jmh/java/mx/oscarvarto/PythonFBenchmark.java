@@ -0,0 +1,68 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.List;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// What a Python F costs compared to the same F in Java: one call at a time, and batched.
+// startup measures a new PythonF (one pooled context, shared Engine) and its first call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PythonFBenchmark {
+
+    private static final String CODE = """
+            def shout(s):
+                return s.upper() + "!"
+            """;
+
+    @Param({"1", "100", "10000"})
+    int size;
+
+    List<String> names;
+    F<String, String> javaShout;
+    PythonF<String, String> pythonShout;
+
+    @Setup
+    public void setup() {
+        names = List.arrayList(BenchmarkData.strings(size, 0.0, 16));
+        javaShout = s -> s.toUpperCase() + "!";
+        pythonShout = PythonF.pythonF(CODE, "shout", Value::asString, 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pythonShout.close();
+    }
+
+    @Benchmark
+    public List<String> javaMap() {
+        return names.map(javaShout);
+    }
+
+    @Benchmark
+    public List<String> pythonMap() {
+        return names.map(pythonShout);
+    }
+
+    @Benchmark
+    public List<String> pythonBatch() {
+        return pythonShout.batch(names);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public String startup() {
+        try (var f = PythonF.<String, String>pythonF(CODE, "shout", Value::asString, 1)) {
+            return f.f("warm");
+        }
+    }
+}
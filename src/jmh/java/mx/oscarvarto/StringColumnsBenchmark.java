@@ -0,0 +1,107 @@
+package mx.oscarvarto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Scalar against vector kernels for growing string lengths, to find where copying the chars into
+// the scratch buffers starts to pay off (VectorStringKernels.MIN_LENGTH).
+// Every string is scanned completely: blank strings are all spaces, digit strings all digits, and
+// the pairs compared ignoring case only differ in case.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringColumnsBenchmark {
+
+    @Param({"4", "8", "16", "32", "64", "256", "1024"})
+    int stringLength;
+
+    @Param({"10000"})
+    int size;
+
+    String[] blanks;
+    String[] digits;
+    String[] lowerCase;
+    String[] upperCase;
+    StringKernels scalar;
+    StringKernels vector;
+
+    @Setup
+    public void setup() {
+        var random = BenchmarkData.random();
+        blanks = new String[size];
+        digits = new String[size];
+        lowerCase = new String[size];
+        upperCase = new String[size];
+        for (int i = 0; i < size; i++) {
+            blanks[i] = " ".repeat(stringLength);
+            digits[i] = BenchmarkData.randomDigits(random, stringLength);
+            lowerCase[i] = BenchmarkData.randomString(random, stringLength).toLowerCase();
+            upperCase[i] = lowerCase[i].toUpperCase();
+        }
+        scalar = ScalarStringKernels.INSTANCE;
+        vector = new VectorStringKernels();
+    }
+
+    @Benchmark
+    public int scalarIsBlank() {
+        int count = 0;
+        for (String s : blanks) {
+            count += scalar.isBlank(s) ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int vectorIsBlank() {
+        int count = 0;
+        for (String s : blanks) {
+            count += vector.isBlank(s) ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int scalarCountDigits() {
+        int count = 0;
+        for (String s : digits) {
+            count += scalar.countDigits(s);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int vectorCountDigits() {
+        int count = 0;
+        for (String s : digits) {
+            count += vector.countDigits(s);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int scalarEqualsIgnoreCase() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count += scalar.equalsIgnoreCase(lowerCase[i], upperCase[i]) ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int vectorEqualsIgnoreCase() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count += vector.equalsIgnoreCase(lowerCase[i], upperCase[i]) ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public boolean[] nullOrBlankColumn() {
+        return StringColumns.nullOrBlank(blanks);
+    }
+}
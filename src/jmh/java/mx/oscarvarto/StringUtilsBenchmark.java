@@ -0,0 +1,83 @@
+package mx.oscarvarto;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static fj.Show.longShow;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringUtilsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int size;
+
+    @Param({"0.0", "0.1", "0.5"})
+    double nullRatio;
+
+    @Param({"8", "64"})
+    int stringLength;
+
+    String[] strings;
+    List<String> collection;
+    List<Long> longs;
+    String pattern;
+    String[] args;
+
+    @Setup
+    public void setup() {
+        strings = BenchmarkData.strings(size, nullRatio, stringLength);
+        collection = Arrays.asList(strings);
+        longs = Arrays.stream(BenchmarkData.longs(size, 0.0)).toList();
+        // pformat gets at most 64 arguments, it is meant for log and message lines
+        args = Arrays.stream(strings).limit(64).map(s -> Objects.requireNonNullElse(s, "null")).toArray(String[]::new);
+        pattern = "{} ".repeat(args.length);
+    }
+
+    @Benchmark
+    public String pformat() {
+        return StringUtils.pformat(pattern, args);
+    }
+
+    @Benchmark
+    public void getDigitsOnly(Blackhole bh) {
+        for (String s : strings) {
+            bh.consume(StringUtils.getDigitsOnly(s));
+        }
+    }
+
+    @Benchmark
+    public String[] digitsOnlyColumn() {
+        return StringUtils.digitsOnlyColumn(strings);
+    }
+
+    @Benchmark
+    public long[] digitsOnlyAsLongColumn() {
+        return StringUtils.digitsOnlyAsLongColumn(strings);
+    }
+
+    @Benchmark
+    public String prettyPrint() {
+        return StringUtils.prettyPrint(collection);
+    }
+
+    @Benchmark
+    public String pprint() {
+        return StringUtils.pprint(longs, longShow);
+    }
+
+    // Baseline for prettyPrint/pprint: what a plain java.util join costs
+    @Benchmark
+    public String javaJoin() {
+        return collection.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package mx.oscarvarto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    @Param({"1", "4", "16", "64"})
+    int args;
+
+    String pattern;
+    String[] values;
+
+    // The recursive, regex based implementation that Template replaced
+    static String recursivePformat(String s, String[] args) {
+        if (args.length == 0) {
+            return s;
+        }
+        return recursivePformat(
+                s.replaceFirst("\\{}", args[0]),
+                Arrays.copyOfRange(args, 1, args.length)
+        );
+    }
+
+    @Setup
+    public void setup() {
+        pattern = "value: {}, ".repeat(args);
+        values = new String[args];
+        for (int i = 0; i < args; i++) {
+            values[i] = Integer.toString(i * 31);
+        }
+    }
+
+    @Benchmark
+    public String recursive() {
+        return recursivePformat(pattern, values);
+    }
+
+    @Benchmark
+    public String compiled() {
+        return StringUtils.format(pattern, values);
+    }
+}
@@ -0,0 +1,77 @@
+package mx.oscarvarto;
+
+import fj.data.NonEmptyList;
+import fj.data.Validation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static fj.Semigroup.nonEmptyListSemigroup;
+import static fj.data.Validation.condition;
+
+// Validation.accumulate per record (as in ValidationTest.PersonValidator) vs a RuleSet
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    static final String NAME_ERROR = "Name cannot be empty or contain only white space";
+    static final String NEGATIVE_AGE_ERROR = "Age cannot be negative";
+    static final String MAX_AGE_ERROR = "Age cannot be bigger than 130 years";
+
+    record Person(String name, int age) {
+    }
+
+    static final RuleSet<Person> rules = RuleSet.<Person>ruleSet()
+            .rule(p -> !p.name().isBlank(), NAME_ERROR)
+            .rule(p -> p.age() >= 0, NEGATIVE_AGE_ERROR)
+            .rule(p -> p.age() <= 130, MAX_AGE_ERROR);
+
+    @Param({"10000"})
+    int size;
+
+    @Param({"0.0", "0.1", "0.5"})
+    double invalidRatio;
+
+    Person[] people;
+
+    static Validation<NonEmptyList<String>, Person> accumulate(Person p) {
+        Validation<NonEmptyList<String>, String> name = condition(!p.name().isBlank(), NAME_ERROR, p.name()).nel();
+        Validation<NonEmptyList<String>, Integer> minAge = condition(p.age() >= 0, NEGATIVE_AGE_ERROR, p.age()).nel();
+        Validation<NonEmptyList<String>, Integer> maxAge = condition(p.age() <= 130, MAX_AGE_ERROR, p.age()).nel();
+        return name.accumulate(nonEmptyListSemigroup(), minAge, maxAge, (n, a1, a2) -> p);
+    }
+
+    @Setup
+    public void setup() {
+        var random = new SplittableRandom(42);
+        people = new Person[size];
+        for (int i = 0; i < size; i++) {
+            people[i] = random.nextDouble() < invalidRatio
+                    ? new Person(" ", -1)
+                    : new Person("Person " + i, random.nextInt(100));
+        }
+    }
+
+    @Benchmark
+    public void validationAccumulate(Blackhole bh) {
+        for (Person p : people) {
+            bh.consume(accumulate(p));
+        }
+    }
+
+    @Benchmark
+    public RuleSet.Report ruleSetAccumulate() {
+        return rules.validateAll(people, RuleSet.Mode.ACCUMULATE);
+    }
+
+    @Benchmark
+    public RuleSet.Report ruleSetFailFast() {
+        return rules.validateAll(people, RuleSet.Mode.FAIL_FAST);
+    }
+}
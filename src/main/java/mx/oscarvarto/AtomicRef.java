@@ -0,0 +1,151 @@
+package mx.oscarvarto;
+
+import fj.F;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// A mutable reference to an immutable value (an fj List or Set, a HashTrieMap, ...) shared by
+// many threads. Readers never block: get and snapshot are a single volatile read.
+// Writers replace the value with compare-and-set, so update functions must be pure: update may
+// call them more than once when other writers get there first.
+// Every successful write publishes a new Snapshot, with a version one higher than the previous.
+public final class AtomicRef<A> {
+
+    // How many queued updates one combiner applies at most before publishing them
+    private static final int MAX_BATCH = 256;
+    private static final long PARK_NANOS = 20_000L;
+
+    public record Snapshot<A>(A value, long version) {
+    }
+
+    private final AtomicReference<Snapshot<A>> state;
+    private final ConcurrentLinkedQueue<Request<A>> requests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean combining = new AtomicBoolean();
+
+    private AtomicRef(A initial) {
+        state = new AtomicReference<>(new Snapshot<>(initial, 0L));
+    }
+
+    public static <A> AtomicRef<A> atomicRef(A initial) {
+        return new AtomicRef<>(initial);
+    }
+
+    public A get() {
+        return state.get().value();
+    }
+
+    public Snapshot<A> snapshot() {
+        return state.get();
+    }
+
+    public long version() {
+        return state.get().version();
+    }
+
+    public void set(A value) {
+        update(a -> value);
+    }
+
+    // Returns the new value
+    public A update(F<A, A> f) {
+        while (true) {
+            var current = state.get();
+            var next = new Snapshot<>(f.f(current.value()), current.version() + 1);
+            if (state.compareAndSet(current, next)) {
+                return next.value();
+            }
+        }
+    }
+
+    // Optimistic writes: succeeds only if nobody wrote since expected was read
+    public boolean compareAndSet(Snapshot<A> expected, A value) {
+        return state.compareAndSet(expected, new Snapshot<>(value, expected.version() + 1));
+    }
+
+    // Like update, but meant for many concurrent writers. Instead of all of them retrying their
+    // compare-and-set, updates are queued and one thread at a time (the combiner) applies the
+    // queued functions in order and publishes them with a single compare-and-set.
+    // Returns the value right after f was applied.
+    public A updateBatched(F<A, A> f) {
+        var request = new Request<>(f, Thread.currentThread());
+        requests.add(request);
+        while (!request.done) {
+            if (combining.compareAndSet(false, true)) {
+                try {
+                    combine();
+                } finally {
+                    combining.set(false);
+                }
+            } else {
+                // The combiner will wake us up once our update is published
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+        var failure = request.failure;
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failure instanceof Error e) {
+            throw e;
+        }
+        if (failure != null) {
+            // A checked exception thrown sneakily by f
+            throw new UndeclaredThrowableException(failure);
+        }
+        @SuppressWarnings("nullness") // Set before done
+        A result = request.result;
+        return result;
+    }
+
+    private void combine() {
+        var batch = new ArrayList<Request<A>>();
+        for (Request<A> r = requests.poll(); r != null; r = batch.size() < MAX_BATCH ? requests.poll() : null) {
+            batch.add(r);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        while (true) {
+            var current = state.get();
+            A value = current.value();
+            for (var r : batch) {
+                try {
+                    value = r.f.f(value);
+                    r.result = value;
+                    r.failure = null;
+                } catch (Throwable e) {
+                    // The value stays as it was, only this request fails. Errors are caught too:
+                    // the rest of the batch is waiting for this combiner to mark them done.
+                    r.failure = e;
+                }
+            }
+            if (state.compareAndSet(current, new Snapshot<>(value, current.version() + 1))) {
+                break;
+            }
+        }
+        for (var r : batch) {
+            r.done = true;
+            LockSupport.unpark(r.thread);
+        }
+    }
+
+    private static final class Request<A> {
+        final F<A, A> f;
+        final Thread thread;
+        @Nullable A result;
+        @Nullable Throwable failure;
+        // Written after result and failure, so reading it first makes them visible
+        volatile boolean done;
+
+        Request(F<A, A> f, Thread thread) {
+            this.f = f;
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package mx.oscarvarto;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+// Reads what a BinaryOutput wrote, either from a buffer that already holds all the data (a mapped
+// file, see map) or streaming from a channel through a buffer that is refilled as needed.
+// Reading past the end throws UncheckedIOException, with an EOFException as its cause.
+public final class BinaryInput implements AutoCloseable {
+
+    // Shared with BinaryOutput: both sides must stop adding strings at the same point
+    static final int MAX_DICTIONARY = 1 << 16;
+
+    private final @Nullable ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private final ArrayList<String> dictionary = new ArrayList<>();
+    private byte[] scratch = new byte[64];
+
+    // Everything there is to read is in buffer (from its position to its limit)
+    public BinaryInput(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+    }
+
+    public BinaryInput(ReadableByteChannel channel) {
+        this(channel, BinaryOutput.DEFAULT_BUFFER_SIZE);
+    }
+
+    BinaryInput(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize).flip();
+    }
+
+    // The whole file mapped in memory when it fits in a MappedByteBuffer, otherwise streamed
+    public static BinaryInput map(Path path) throws IOException {
+        try (var file = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (file.size() <= Integer.MAX_VALUE) {
+                // The mapping stays valid after the channel is closed
+                return new BinaryInput(file.map(FileChannel.MapMode.READ_ONLY, 0, file.size()));
+            }
+        }
+        return new BinaryInput(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public <A> A read(Codec<A> codec) {
+        return codec.read(this);
+    }
+
+    // False once everything has been read
+    public boolean hasRemaining() {
+        return buffer.hasRemaining() || fill(1);
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer.get() & 0xFF;
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    public long readLong() {
+        long v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public int readInt() {
+        return Math.toIntExact(readLong());
+    }
+
+    // A size, as written with writeVarint
+    public int readSize() {
+        return Math.toIntExact(readVarint());
+    }
+
+    public double readDouble() {
+        require(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    public String readString() {
+        int index = readSize();
+        if (index > 0) {
+            return dictionary.get(index - 1);
+        }
+        int length = readSize();
+        String s;
+        if (buffer.hasArray() && buffer.remaining() >= length) {
+            s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            readBytes(scratch, length);
+            s = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        if (dictionary.size() < MAX_DICTIONARY) {
+            dictionary.add(s);
+        }
+        return s;
+    }
+
+    private void readBytes(byte[] bytes, int length) {
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                require(1);
+            }
+            int n = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    private void require(int bytes) {
+        if (buffer.remaining() < bytes && !fill(bytes)) {
+            throw new UncheckedIOException(new EOFException("Expected " + bytes + " more bytes"));
+        }
+    }
+
+    // Reads from the channel until bytes are available, or the channel is exhausted
+    private boolean fill(int bytes) {
+        var in = channel;
+        if (in == null) {
+            return false;
+        }
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(bytes).put(buffer).flip();
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < bytes) {
+                if (in.read(buffer) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.flip();
+        }
+        return buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public void close() {
+        var in = channel;
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package mx.oscarvarto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+// Writes Codec values to a channel, through a buffer that is flushed when full (and on flush or
+// close), so that any amount of data is written in constant memory.
+// Numbers are varints (zigzag encoded when signed). Strings go through a dictionary: the first
+// time a string is written it is written in full, and afterwards as its index in the dictionary.
+// The dictionary stops growing at BinaryInput.MAX_DICTIONARY strings, after which new strings are
+// always written in full. A BinaryInput reads the same dictionary back in the same order.
+public final class BinaryOutput implements AutoCloseable {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private final HashMap<String, Integer> dictionary = new HashMap<>();
+
+    public BinaryOutput(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    BinaryOutput(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    public <A> BinaryOutput write(Codec<A> codec, A a) {
+        codec.write(a, this);
+        return this;
+    }
+
+    public void writeByte(int b) {
+        ensure(1);
+        buffer.put((byte) b);
+    }
+
+    public void writeBoolean(boolean b) {
+        writeByte(b ? 1 : 0);
+    }
+
+    // For sizes and other values that are never negative
+    public void writeVarint(long value) {
+        ensure(10);
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    public void writeLong(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    public void writeInt(int value) {
+        writeLong(value);
+    }
+
+    public void writeDouble(double value) {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    public void writeString(String s) {
+        var index = dictionary.get(s);
+        if (index != null) {
+            writeVarint(index + 1L);
+            return;
+        }
+        if (dictionary.size() < BinaryInput.MAX_DICTIONARY) {
+            dictionary.put(s, dictionary.size());
+        }
+        writeVarint(0);
+        var bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        writeBytes(bytes);
+    }
+
+    private void writeBytes(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            drain();
+            if (buffer.remaining() < bytes) {
+                buffer = ByteBuffer.allocate(bytes);
+            }
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    public void flush() {
+        drain();
+    }
+
+    // Flushes and closes the channel
+    @Override
+    public void close() {
+        try (channel) {
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.Either;
+import fj.data.Option;
+import fj.data.Validation;
+
+import java.util.Collection;
+import java.util.Arrays;
+
+// A composition of Fs kept as a flat array of stages, run by a loop.
+// f.andThen(g).andThen(h)... nests one lambda per andThen, so every call goes down a stack as deep
+// as the chain, through call sites the JIT gives up inlining: long generated chains are slow, and
+// the longest ones throw StackOverflowError. A Chain appends stages to an array instead, and f runs
+// them one after the other, whatever the length of the chain. Appending a Chain to a Chain copies
+// its stages, so the result stays flat.
+// Besides plain maps, a Chain knows binds on Option, Validation and Either: once a value is none,
+// a failure or a left, the following binds of the same kind are skipped in one jump instead of
+// being called one by one just to pass the value along.
+// Chains are immutable: andThen and the bind functions return a new Chain.
+public final class Chain<A, B> implements F<A, B> {
+
+    private static final byte MAP = 0;
+    private static final byte OPTION = 1;
+    private static final byte VALIDATION = 2;
+    private static final byte EITHER = 3;
+
+    private static final Chain<?, ?> IDENTITY = new Chain<>(new byte[0], new F<?, ?>[0]);
+
+    private final byte[] kinds;
+    private final F<Object, Object>[] fs;
+    // For bind stages: where to go when the value short circuits, i.e. after the last bind of the
+    // same kind in a row
+    private final int[] skipTo;
+
+    @SuppressWarnings("unchecked")
+    private Chain(byte[] kinds, F<?, ?>[] fs) {
+        this.kinds = kinds;
+        this.fs = (F<Object, Object>[]) fs;
+        this.skipTo = new int[kinds.length];
+        for (int i = kinds.length - 1; i >= 0; i--) {
+            skipTo[i] = i + 1 < kinds.length && kinds[i + 1] == kinds[i] ? skipTo[i + 1] : i + 1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <A> Chain<A, A> chain() {
+        return (Chain<A, A>) IDENTITY;
+    }
+
+    public static <A, B> Chain<A, B> chain(F<A, B> f) {
+        return Chain.<A>chain().andThen(f);
+    }
+
+    // For chains built from configuration, where every stage has the same type
+    public static <A> Chain<A, A> chain(Iterable<? extends F<A, A>> fs) {
+        Chain<A, A> chain = chain();
+        int capacity = fs instanceof Collection<?> c ? Math.max(c.size(), 1) : 16;
+        var kinds = new byte[capacity];
+        var stages = new F<?, ?>[capacity];
+        int n = 0;
+        for (F<A, A> f : fs) {
+            int added = f instanceof Chain<?, ?> c ? c.kinds.length : 1;
+            if (n + added > kinds.length) {
+                int grown = Math.max(n + added, kinds.length * 2);
+                kinds = Arrays.copyOf(kinds, grown);
+                stages = Arrays.copyOf(stages, grown);
+            }
+            if (f instanceof Chain<?, ?> c) {
+                System.arraycopy(c.kinds, 0, kinds, n, added);
+                System.arraycopy(c.fs, 0, stages, n, added);
+            } else {
+                kinds[n] = MAP;
+                stages[n] = f;
+            }
+            n += added;
+        }
+        return n == 0 ? chain : new Chain<>(Arrays.copyOf(kinds, n), Arrays.copyOf(stages, n));
+    }
+
+    public int stages() {
+        return kinds.length;
+    }
+
+    public <C> Chain<A, C> andThen(F<B, C> g) {
+        if (g instanceof Chain<?, ?> c) {
+            return append(c.kinds, c.fs);
+        }
+        return append(new byte[]{MAP}, new F<?, ?>[]{g});
+    }
+
+    public <C> Chain<C, B> compose(F<C, A> g) {
+        return Chain.chain(g).andThen(this);
+    }
+
+    // Same as chain.andThen(o -> o.bind(f))
+    public static <A, X, C> Chain<A, Option<C>> bindOption(Chain<A, Option<X>> chain, F<X, Option<C>> f) {
+        return chain.append(new byte[]{OPTION}, new F<?, ?>[]{f});
+    }
+
+    // Same as chain.andThen(v -> v.bind(f))
+    public static <A, E, X, C> Chain<A, Validation<E, C>> bindValidation(Chain<A, Validation<E, X>> chain,
+                                                                        F<X, Validation<E, C>> f) {
+        return chain.append(new byte[]{VALIDATION}, new F<?, ?>[]{f});
+    }
+
+    // Same as chain.andThen(e -> e.right().bind(f))
+    public static <A, L, X, C> Chain<A, Either<L, C>> bindEither(Chain<A, Either<L, X>> chain, F<X, Either<L, C>> f) {
+        return chain.append(new byte[]{EITHER}, new F<?, ?>[]{f});
+    }
+
+    private <C> Chain<A, C> append(byte[] moreKinds, F<?, ?>[] moreFs) {
+        var newKinds = Arrays.copyOf(kinds, kinds.length + moreKinds.length);
+        System.arraycopy(moreKinds, 0, newKinds, kinds.length, moreKinds.length);
+        var newFs = Arrays.copyOf(fs, fs.length + moreFs.length, F[].class);
+        System.arraycopy(moreFs, 0, newFs, fs.length, moreFs.length);
+        return new Chain<>(newKinds, newFs);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "nullness"})
+    public B f(A a) {
+        Object value = a;
+        int i = 0;
+        while (i < kinds.length) {
+            switch (kinds[i]) {
+                case MAP -> {
+                    value = fs[i].f(value);
+                    i++;
+                }
+                case OPTION -> {
+                    var option = (Option<Object>) value;
+                    if (option.isSome()) {
+                        value = fs[i].f(option.some());
+                        i++;
+                    } else {
+                        i = skipTo[i];
+                    }
+                }
+                case VALIDATION -> {
+                    var validation = (Validation<Object, Object>) value;
+                    if (validation.isSuccess()) {
+                        value = fs[i].f(validation.success());
+                        i++;
+                    } else {
+                        i = skipTo[i];
+                    }
+                }
+                default -> {
+                    var either = (Either<Object, Object>) value;
+                    if (either.isRight()) {
+                        value = fs[i].f(either.right().value());
+                        i++;
+                    } else {
+                        i = skipTo[i];
+                    }
+                }
+            }
+        }
+        return (B) value;
+    }
+}
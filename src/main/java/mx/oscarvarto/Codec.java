@@ -0,0 +1,181 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.Ord;
+import fj.data.Either;
+import fj.data.List;
+import fj.data.Option;
+import fj.data.Set;
+import fj.data.Validation;
+import fj.function.Effect1;
+import fj.function.Effect2;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// A compact binary format for checkpointing fj values, in the style of fj's Show and Equal:
+// element codecs are plugged into codecs for List, Set, Option, Either and Validation.
+// Sizes and numbers are varints, so small values take one byte, and repeated strings are written
+// once and then referenced by index (see BinaryOutput).
+// A file can hold one value (write/read) or a stream of them (writeAll/forEach), written and read
+// in constant memory. Files are read through a memory mapping when they fit in one.
+public interface Codec<A> {
+
+    void write(A a, BinaryOutput out);
+
+    A read(BinaryInput in);
+
+    // A codec for B, written as the A it maps to
+    default <B> Codec<B> xmap(F<A, B> to, F<B, A> from) {
+        var self = this;
+        return new Codec<>() {
+            @Override
+            public void write(B b, BinaryOutput out) {
+                self.write(from.f(b), out);
+            }
+
+            @Override
+            public B read(BinaryInput in) {
+                return to.f(self.read(in));
+            }
+        };
+    }
+
+    static <A> Codec<A> codec(Effect2<A, BinaryOutput> write, F<BinaryInput, A> read) {
+        return new Codec<>() {
+            @Override
+            public void write(A a, BinaryOutput out) {
+                write.f(a, out);
+            }
+
+            @Override
+            public A read(BinaryInput in) {
+                return read.f(in);
+            }
+        };
+    }
+
+    Codec<Boolean> booleanCodec = codec((b, out) -> out.writeBoolean(b), BinaryInput::readBoolean);
+    Codec<Integer> intCodec = codec((i, out) -> out.writeInt(i), BinaryInput::readInt);
+    Codec<Long> longCodec = codec((l, out) -> out.writeLong(l), BinaryInput::readLong);
+    Codec<Double> doubleCodec = codec((d, out) -> out.writeDouble(d), BinaryInput::readDouble);
+    Codec<String> stringCodec = codec((s, out) -> out.writeString(s), BinaryInput::readString);
+    Codec<LocalDate> localDateCodec = longCodec.xmap(LocalDate::ofEpochDay, LocalDate::toEpochDay);
+    // Seconds and nanoseconds, as if at UTC
+    Codec<LocalDateTime> localDateTimeCodec = codec(
+            (t, out) -> {
+                out.writeLong(t.toEpochSecond(ZoneOffset.UTC));
+                out.writeVarint(t.getNano());
+            },
+            in -> LocalDateTime.ofEpochSecond(in.readLong(), (int) in.readVarint(), ZoneOffset.UTC));
+
+    static <A> Codec<List<A>> listCodec(Codec<A> ca) {
+        return codec(
+                (as, out) -> {
+                    out.writeVarint(as.length());
+                    for (A a : as) {
+                        ca.write(a, out);
+                    }
+                },
+                in -> {
+                    var buffer = new List.Buffer<A>();
+                    for (int i = in.readSize(); i > 0; i--) {
+                        buffer.snoc(ca.read(in));
+                    }
+                    return buffer.toList();
+                });
+    }
+
+    // Elements are written in the order of the set. ord must be the one the set was built with.
+    static <A> Codec<Set<A>> setCodec(Ord<A> ord, Codec<A> ca) {
+        return codec(
+                (as, out) -> {
+                    out.writeVarint(as.size());
+                    for (A a : as) {
+                        ca.write(a, out);
+                    }
+                },
+                in -> {
+                    var set = Set.empty(ord);
+                    for (int i = in.readSize(); i > 0; i--) {
+                        set = set.insert(ca.read(in));
+                    }
+                    return set;
+                });
+    }
+
+    static <A> Codec<Option<A>> optionCodec(Codec<A> ca) {
+        return codec(
+                (o, out) -> {
+                    out.writeBoolean(o.isSome());
+                    if (o.isSome()) {
+                        ca.write(o.some(), out);
+                    }
+                },
+                in -> in.readBoolean() ? Option.some(ca.read(in)) : Option.none());
+    }
+
+    static <L, R> Codec<Either<L, R>> eitherCodec(Codec<L> cl, Codec<R> cr) {
+        return codec(
+                (e, out) -> {
+                    out.writeBoolean(e.isRight());
+                    if (e.isRight()) {
+                        cr.write(e.right().value(), out);
+                    } else {
+                        cl.write(e.left().value(), out);
+                    }
+                },
+                in -> in.readBoolean() ? Either.right(cr.read(in)) : Either.left(cl.read(in)));
+    }
+
+    static <E, T> Codec<Validation<E, T>> validationCodec(Codec<E> ce, Codec<T> ct) {
+        return codec(
+                (v, out) -> {
+                    out.writeBoolean(v.isSuccess());
+                    if (v.isSuccess()) {
+                        ct.write(v.success(), out);
+                    } else {
+                        ce.write(v.fail(), out);
+                    }
+                },
+                in -> in.readBoolean() ? Validation.success(ct.read(in)) : Validation.fail(ce.read(in)));
+    }
+
+    // Replaces the file
+    static <A> void write(Path path, Codec<A> codec, A a) throws IOException {
+        try (var out = new BinaryOutput(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            out.write(codec, a);
+        }
+    }
+
+    static <A> A read(Path path, Codec<A> codec) throws IOException {
+        try (var in = BinaryInput.map(path)) {
+            return in.read(codec);
+        }
+    }
+
+    // One value after the other, sharing one string dictionary. Replaces the file.
+    static <A> void writeAll(Path path, Codec<A> codec, Iterable<? extends A> as) throws IOException {
+        try (var out = new BinaryOutput(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            for (A a : as) {
+                out.write(codec, a);
+            }
+        }
+    }
+
+    // Reads back what writeAll wrote, one value at a time
+    static <A> void forEach(Path path, Codec<A> codec, Effect1<A> effect) throws IOException {
+        try (var in = BinaryInput.map(path)) {
+            while (in.hasRemaining()) {
+                effect.f(in.read(codec));
+            }
+        }
+    }
+}
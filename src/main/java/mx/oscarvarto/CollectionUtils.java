@@ -1,39 +1,110 @@
 package mx.oscarvarto;
 
-import com.google.common.base.Predicates;
-import com.google.common.collect.Iterables;
 import fj.Equal;
+import fj.Hash;
 import fj.Ord;
 import fj.data.List;
 import fj.data.Option;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.nullness.qual.PolyNull;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.stream.Stream;
 
-import static fj.data.List.fromIterator;
-import static fj.data.List.iterableList;
 import static fj.data.Set.iterableSet;
 
 public class CollectionUtils {
+    // The conversions below are the boundary between nullable java.util collections and fj ones.
+    // They skip null elements in a single pass: fj lists are built back to front with cons, so
+    // no intermediate iterator, stream or buffer is needed. Inputs without nulls are returned as
+    // they are when the result type allows it.
+
     // as parameter can be null. Returned list will never be null
+    @SuppressWarnings("unchecked")
     public static <A> List<A> listFromIterable(Iterable<A> as) {
-        return Option.fromNull(as).option(
-                List.nil(),
-                aas -> iterableList(Iterables.filter(aas, Predicates.notNull()))
-        );
+        if (as == null) {
+            return List.nil();
+        }
+        if (as instanceof List<?> fjList) {
+            // fj lists are immutable, so one without nulls can be shared
+            var list = (List<A>) fjList;
+            return list.exists(Objects::isNull) ? list.filter(Objects::nonNull) : list;
+        }
+        if (as instanceof java.util.List<A> javaList && javaList instanceof RandomAccess) {
+            List<A> result = List.nil();
+            for (int i = javaList.size() - 1; i >= 0; i--) {
+                A a = javaList.get(i);
+                if (a != null) {
+                    result = result.cons(a);
+                }
+            }
+            return result;
+        }
+        if (as instanceof Collection<A> collection) {
+            return listFromArray((A[]) collection.toArray());
+        }
+        var buffer = new List.Buffer<A>();
+        for (A a : as) {
+            if (a != null) {
+                buffer.snoc(a);
+            }
+        }
+        return buffer.toList();
     }
 
     @SafeVarargs
     public static <A> List<A> listFromArray(A... as) {
-        return Option.fromNull(as).option(
-                List.nil(),
-                aas -> fromIterator(Arrays.stream(aas).filter(Objects::nonNull).iterator())
-        );
+        if (as == null) {
+            return List.nil();
+        }
+        List<A> result = List.nil();
+        for (int i = as.length - 1; i >= 0; i--) {
+            A a = as[i];
+            if (a != null) {
+                result = result.cons(a);
+            }
+        }
+        return result;
+    }
+
+    // An unmodifiable java.util.List without the null elements of as. It is always a copy: later
+    // changes to as (nulls included) do not show in it.
+    public static <A> java.util.List<@NonNull A> nonNullList(@Nullable Collection<? extends @Nullable A> as) {
+        if (as == null || as.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // One walk over as (toArray), then the nulls are squeezed out of the copy
+        @Nullable Object[] copy = as.toArray();
+        int nonNull = 0;
+        for (Object a : copy) {
+            if (a != null) {
+                copy[nonNull++] = a;
+            }
+        }
+        if (nonNull == 0) {
+            return Collections.emptyList();
+        }
+        @SuppressWarnings({"unchecked", "nullness"}) // The first nonNull elements are As, none of them null
+        java.util.List<@NonNull A> noNulls = (java.util.List<@NonNull A>) Arrays.asList(
+                nonNull == copy.length ? copy : Arrays.copyOf(copy, nonNull));
+        return Collections.unmodifiableList(noNulls);
+    }
+
+    public static int countNonNull(Collection<? extends @Nullable Object> as) {
+        int count = 0;
+        for (Object a : as) {
+            if (a != null) {
+                count++;
+            }
+        }
+        return count;
     }
 
     public static <A> fj.data.Set<A> setFromJava(Ord<A> o, Set<A> as) {
@@ -45,13 +116,50 @@ public class CollectionUtils {
     }
 
     public static <T> Stream<@NonNull T> fromNullableCollection(@PolyNull Collection<@PolyNull T> collection) {
-        return Stream.ofNullable(collection).flatMap(ts ->
-                //ts.stream().filter(Objects::nonNull)
-                ts.stream().flatMap(Stream::ofNullable)
-        );
+        if (collection == null) {
+            return Stream.empty();
+        }
+        // One filter stage instead of a Stream.ofNullable per element
+        @SuppressWarnings("nullness") // Objects::nonNull removes the nulls
+        Stream<@NonNull T> nonNull = collection.stream().filter(Objects::nonNull);
+        return nonNull;
     }
 
     public static <T> boolean optionsExistAndEqual(Equal<T> eqT, Option<T> optT1, Option<T> optT2) {
         return optT1.bind(t1 -> optT2.map(t2 -> eqT.eq(t1, t2))).orSome(false);
     }
+
+    // Same result as as.nub(eq): the first occurrence of every element, in order. Elements are
+    // looked up by hash, so it takes linear time instead of quadratic.
+    // hash must agree with eq (equal elements, same hash).
+    public static <A> List<A> nub(List<A> as, Equal<A> eq, Hash<A> hash) {
+        var seen = new HashSet<Key<A>>();
+        var buffer = new List.Buffer<A>();
+        for (A a : as) {
+            if (seen.add(new Key<>(a, eq, hash))) {
+                buffer.snoc(a);
+            }
+        }
+        return buffer.toList();
+    }
+
+    // For records and enums, with their Derived instances
+    public static <A> List<A> nub(List<A> as, Class<A> type) {
+        var derived = Derived.derived(type);
+        return nub(as, derived.equal(), derived.hash());
+    }
+
+    // An element with the equality and hash of fj instances, to be kept in java.util collections
+    private record Key<A>(A value, Equal<A> eq, Hash<A> hash) {
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean equals(@Nullable Object o) {
+            return o instanceof Key<?> other && eq.eq(value, (A) other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash.hash(value);
+        }
+    }
 }
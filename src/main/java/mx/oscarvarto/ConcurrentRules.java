@@ -0,0 +1,180 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.Semigroup;
+import fj.data.NonEmptyList;
+import fj.data.Option;
+import fj.data.Validation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static fj.Semigroup.nonEmptyListSemigroup;
+
+// Validation rules that block (lookups in files or an embedded database) run concurrently, each on
+// its own virtual thread, so validating a record takes about as long as its slowest rule instead of
+// the sum of all of them.
+// Every rule has a timeout: a rule that does not finish in time fails with its timeout error and is
+// interrupted. Errors are merged with nonEmptyListSemigroup in the order the rules were declared,
+// whatever order they finish in, so the result is the same as accumulating the rules one by one.
+// In FAIL_FAST mode the first rule to fail wins and the others are cancelled right away.
+// Exceptions thrown by a rule are rethrown by validate.
+public final class ConcurrentRules<T, E> {
+
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private record Rule<T, E>(F<T, ? extends Validation<E, ?>> check, long timeoutNanos, E timeoutError) {
+    }
+
+    private final Rule<T, E>[] rules;
+    private final ExecutorService executor;
+
+    private ConcurrentRules(Rule<T, E>[] rules, ExecutorService executor) {
+        this.rules = rules;
+        this.executor = executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T, E> ConcurrentRules<T, E> concurrentRules() {
+        return new ConcurrentRules<>((Rule<T, E>[]) new Rule<?, ?>[0], VIRTUAL_THREADS);
+    }
+
+    public ConcurrentRules<T, E> rule(F<T, ? extends Validation<E, ?>> check, Duration timeout, E timeoutError) {
+        var newRules = Arrays.copyOf(rules, rules.length + 1);
+        newRules[rules.length] = new Rule<>(check, timeout.toNanos(), timeoutError);
+        return new ConcurrentRules<>(newRules, executor);
+    }
+
+    // Like Validation.condition: check must hold, otherwise the rule fails with error
+    public ConcurrentRules<T, E> condition(F<T, Boolean> check, E error, Duration timeout, E timeoutError) {
+        return rule(t -> Validation.condition(check.f(t), error, t), timeout, timeoutError);
+    }
+
+    // Rules run on virtual threads unless another executor is given
+    public ConcurrentRules<T, E> withExecutor(ExecutorService executor) {
+        return new ConcurrentRules<>(rules, executor);
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public Validation<NonEmptyList<E>, T> validate(T t, RuleSet.Mode mode) throws InterruptedException {
+        // Finished rules report their index here
+        var done = new LinkedBlockingQueue<Integer>();
+        @SuppressWarnings("unchecked")
+        var futures = (Future<Validation<E, ?>>[]) new Future<?>[rules.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < rules.length; i++) {
+            var rule = rules[i];
+            int index = i;
+            futures[i] = executor.submit(() -> {
+                try {
+                    return rule.check().f(t);
+                } finally {
+                    done.add(index);
+                }
+            });
+        }
+        try {
+            return mode == RuleSet.Mode.FAIL_FAST
+                    ? firstFailure(t, futures, done, start)
+                    : allFailures(t, futures, start);
+        } finally {
+            for (var future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Validation<NonEmptyList<E>, T> allFailures(T t, Future<Validation<E, ?>>[] futures, long start)
+            throws InterruptedException {
+        Semigroup<NonEmptyList<E>> semigroup = nonEmptyListSemigroup();
+        Option<NonEmptyList<E>> errors = Option.none();
+        for (int i = 0; i < futures.length; i++) {
+            var result = await(i, futures[i], start);
+            if (result.isFail()) {
+                var error = NonEmptyList.nel(result.fail());
+                errors = Option.some(errors.isSome() ? semigroup.sum(errors.some(), error) : error);
+            }
+        }
+        return errors.isSome() ? Validation.fail(errors.some()) : Validation.success(t);
+    }
+
+    private Validation<NonEmptyList<E>, T> firstFailure(T t, Future<Validation<E, ?>>[] futures,
+                                                        LinkedBlockingQueue<Integer> done, long start)
+            throws InterruptedException {
+        var finished = new boolean[futures.length];
+        for (int remaining = futures.length; remaining > 0; remaining--) {
+            long wait = nextDeadline(finished, start) - System.nanoTime();
+            Integer i = done.poll(Math.max(0L, wait), TimeUnit.NANOSECONDS);
+            if (i == null) {
+                // Some rule ran out of time
+                int late = firstLate(finished, start);
+                return Validation.fail(NonEmptyList.nel(rules[late].timeoutError()));
+            }
+            finished[i] = true;
+            var result = await(i, futures[i], start);
+            if (result.isFail()) {
+                return Validation.fail(NonEmptyList.nel(result.fail()));
+            }
+        }
+        return Validation.success(t);
+    }
+
+    private long nextDeadline(boolean[] finished, long start) {
+        long deadline = Long.MAX_VALUE;
+        for (int i = 0; i < rules.length; i++) {
+            if (!finished[i]) {
+                deadline = Math.min(deadline, start + rules[i].timeoutNanos());
+            }
+        }
+        return deadline;
+    }
+
+    private int firstLate(boolean[] finished, long start) {
+        long now = System.nanoTime();
+        int late = -1;
+        for (int i = 0; i < rules.length; i++) {
+            if (!finished[i] && now - start >= rules[i].timeoutNanos()
+                    && (late == -1 || rules[i].timeoutNanos() < rules[late].timeoutNanos())) {
+                late = i;
+            }
+        }
+        return late == -1 ? nextUnfinished(finished) : late;
+    }
+
+    private static int nextUnfinished(boolean[] finished) {
+        int i = 0;
+        while (finished[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    // The result of rule i, or a failure with its timeout error
+    private Validation<E, ?> await(int i, Future<Validation<E, ?>> future, long start) throws InterruptedException {
+        long wait = start + rules[i].timeoutNanos() - System.nanoTime();
+        try {
+            return future.get(Math.max(0L, wait), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return Validation.fail(rules[i].timeoutError());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
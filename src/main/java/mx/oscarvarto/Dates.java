@@ -0,0 +1,308 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.Try;
+import fj.data.Option;
+import fj.data.Validation;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+
+// Parsers for ISO_LOCAL_DATE (yyyy-MM-dd) and "yyyy-MM-dd HH:mm:ss" that do not throw.
+// Wrapping LocalDate.parse in Try.f builds a DateTimeParseException (with its stack trace) for
+// every malformed input. These parsers check the fixed layout by hand and only build a value (or,
+// for the Validation variants, a ParseError) at the end.
+// Results are the same as the JDK formatters: ISO_LOCAL_DATE resolves strictly, while the
+// ofPattern formatter resolves smartly (a day past the end of the month becomes its last day).
+// The rare inputs that the fixed layout does not cover (years with a sign or more than 4 digits,
+// 24:00:00) are handed to the JDK formatter.
+public final class Dates {
+
+    public static final DateTimeFormatter DATE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    public static final int NO_ERROR = -1;
+
+    private static final int DATE_LENGTH = 10;
+    private static final int DATE_TIME_LENGTH = 19;
+    private static final int FALLBACK = -2;
+
+    private static final F<String, Validation<DateTimeParseException, LocalDate>> jdkParseDate =
+            Try.f((String s) -> LocalDate.parse(s, ISO_LOCAL_DATE));
+    private static final F<String, Validation<DateTimeParseException, LocalDateTime>> jdkParseDateTime =
+            Try.f((String s) -> LocalDateTime.parse(s, DATE_TIME_FORMATTER));
+
+    private Dates() {
+    }
+
+    // errorIndex has the same meaning as DateTimeParseException.getErrorIndex()
+    public record ParseError(int errorIndex, String message) {
+    }
+
+    private enum Reason {
+        UNPARSEABLE, UNPARSED_TEXT, YEAR_OF_ERA, MONTH, DAY, INVALID_DATE, HOUR, MINUTE, SECOND
+    }
+
+    // Error codes pack the error index and the Reason
+    private static final Reason[] REASONS = Reason.values();
+
+    public static Option<LocalDate> readIsoLocalDate(@Nullable CharSequence text) {
+        if (text == null) {
+            return Option.none();
+        }
+        int check = checkDate(text);
+        if (check == FALLBACK) {
+            return jdkParseDate.f(text.toString()).toOption();
+        }
+        return check == NO_ERROR ? Option.some(date(text, false)) : Option.none();
+    }
+
+    public static Validation<ParseError, LocalDate> parseIsoLocalDate(@Nullable CharSequence text) {
+        if (text == null) {
+            return Validation.fail(new ParseError(0, "Text cannot be null"));
+        }
+        int check = checkDate(text);
+        if (check == FALLBACK) {
+            return jdkParseDate.f(text.toString()).f().map(Dates::parseError);
+        }
+        return check == NO_ERROR
+                ? Validation.success(date(text, false))
+                : Validation.fail(parseError(text, check));
+    }
+
+    public static Option<LocalDateTime> readLocalDateTime(@Nullable CharSequence text) {
+        if (text == null) {
+            return Option.none();
+        }
+        int check = checkDateTime(text);
+        if (check == FALLBACK) {
+            return jdkParseDateTime.f(text.toString()).toOption();
+        }
+        return check == NO_ERROR ? Option.some(dateTime(text)) : Option.none();
+    }
+
+    public static Validation<ParseError, LocalDateTime> parseLocalDateTime(@Nullable CharSequence text) {
+        if (text == null) {
+            return Validation.fail(new ParseError(0, "Text cannot be null"));
+        }
+        int check = checkDateTime(text);
+        if (check == FALLBACK) {
+            return jdkParseDateTime.f(text.toString()).f().map(Dates::parseError);
+        }
+        return check == NO_ERROR
+                ? Validation.success(dateTime(text))
+                : Validation.fail(parseError(text, check));
+    }
+
+    // Bulk ISO_LOCAL_DATE parsing of a whole column. Invalid (or null) texts give null elements,
+    // and errorIndexes[i] is set to the error index of column[i], or NO_ERROR.
+    public static @Nullable LocalDate[] readIsoLocalDates(@Nullable String[] column, int[] errorIndexes) {
+        if (errorIndexes.length < column.length) {
+            throw new IllegalArgumentException("errorIndexes is shorter than the column");
+        }
+        var dates = new @Nullable LocalDate[column.length];
+        for (int i = 0; i < column.length; i++) {
+            String text = column[i];
+            if (text == null) {
+                errorIndexes[i] = 0;
+                continue;
+            }
+            int check = checkDate(text);
+            if (check == FALLBACK) {
+                var parsed = parseIsoLocalDate(text);
+                dates[i] = parsed.isSuccess() ? parsed.success() : null;
+                errorIndexes[i] = parsed.isSuccess() ? NO_ERROR : parsed.fail().errorIndex();
+            } else if (check == NO_ERROR) {
+                dates[i] = date(text, false);
+                errorIndexes[i] = NO_ERROR;
+            } else {
+                errorIndexes[i] = check / REASONS.length;
+            }
+        }
+        return dates;
+    }
+
+    public static @Nullable LocalDate[] readIsoLocalDates(@Nullable String[] column) {
+        return readIsoLocalDates(column, new int[column.length]);
+    }
+
+    private static ParseError parseError(DateTimeParseException e) {
+        return new ParseError(e.getErrorIndex(), String.valueOf(e.getMessage()));
+    }
+
+    private static ParseError parseError(CharSequence text, int error) {
+        int index = error / REASONS.length;
+        var reason = REASONS[error % REASONS.length];
+        var prefix = "Text '%s' could not be parsed".formatted(text);
+        var message = switch (reason) {
+            case UNPARSEABLE -> prefix + " at index " + index;
+            case UNPARSED_TEXT -> prefix + ", unparsed text found at index " + index;
+            case YEAR_OF_ERA -> prefix + ": Invalid value for YearOfEra: " + number(text, 0, 4);
+            case MONTH -> prefix + ": Invalid value for MonthOfYear (valid values 1 - 12): " + number(text, 5, 2);
+            case DAY -> prefix + ": Invalid value for DayOfMonth (valid values 1 - 28/31): " + number(text, 8, 2);
+            case INVALID_DATE -> prefix + ": Invalid date '%s %d'".formatted(
+                    Month.of(number(text, 5, 2)), number(text, 8, 2));
+            case HOUR -> prefix + ": Invalid value for HourOfDay (valid values 0 - 23): " + number(text, 11, 2);
+            case MINUTE -> prefix + ": Invalid value for MinuteOfHour (valid values 0 - 59): " + number(text, 14, 2);
+            case SECOND -> prefix + ": Invalid value for SecondOfMinute (valid values 0 - 59): " + number(text, 17, 2);
+        };
+        return new ParseError(index, message);
+    }
+
+    private static int error(int index, Reason reason) {
+        return index * REASONS.length + reason.ordinal();
+    }
+
+    // NO_ERROR, FALLBACK or an error code
+    private static int checkDate(CharSequence text) {
+        int layout = checkDateLayout(text);
+        if (layout != NO_ERROR) {
+            return layout;
+        }
+        if (text.length() > DATE_LENGTH) {
+            return error(DATE_LENGTH, Reason.UNPARSED_TEXT);
+        }
+        return checkDateValues(text, false);
+    }
+
+    private static int checkDateTime(CharSequence text) {
+        int layout = checkDateLayout(text);
+        if (layout != NO_ERROR) {
+            return layout;
+        }
+        if (!charAt(text, 10, ' ')) {
+            return error(10, Reason.UNPARSEABLE);
+        }
+        for (int field = 11; field < DATE_TIME_LENGTH; field += 3) {
+            if (!digits(text, field, 2)) {
+                return error(field, Reason.UNPARSEABLE);
+            }
+            if (field < 17 && !charAt(text, field + 2, ':')) {
+                return error(field + 2, Reason.UNPARSEABLE);
+            }
+        }
+        if (text.length() > DATE_TIME_LENGTH) {
+            return error(DATE_TIME_LENGTH, Reason.UNPARSED_TEXT);
+        }
+        int date = checkDateValues(text, true);
+        if (date != NO_ERROR) {
+            return date;
+        }
+        int hour = number(text, 11, 2);
+        if (hour == 24) {
+            // 24:00:00 resolves to midnight of the next day
+            return FALLBACK;
+        }
+        if (hour > 23) {
+            return error(0, Reason.HOUR);
+        }
+        if (number(text, 14, 2) > 59) {
+            return error(0, Reason.MINUTE);
+        }
+        if (number(text, 17, 2) > 59) {
+            return error(0, Reason.SECOND);
+        }
+        return NO_ERROR;
+    }
+
+    // The error index of a parse error is the start of the field that could not be parsed
+    private static int checkDateLayout(CharSequence text) {
+        int length = text.length();
+        if (length > 0 && (text.charAt(0) == '+' || text.charAt(0) == '-')) {
+            return FALLBACK;
+        }
+        if (!digits(text, 0, 4)) {
+            return error(0, Reason.UNPARSEABLE);
+        }
+        if (length > 4 && isDigit(text.charAt(4))) {
+            return FALLBACK;
+        }
+        if (!charAt(text, 4, '-')) {
+            return error(4, Reason.UNPARSEABLE);
+        }
+        if (!digits(text, 5, 2)) {
+            return error(5, Reason.UNPARSEABLE);
+        }
+        if (!charAt(text, 7, '-')) {
+            return error(7, Reason.UNPARSEABLE);
+        }
+        if (!digits(text, 8, 2)) {
+            return error(8, Reason.UNPARSEABLE);
+        }
+        return NO_ERROR;
+    }
+
+    // Once the text is parsed, the JDK reports resolving errors at index 0.
+    // smart: resolve as the ofPattern formatter does, instead of strictly.
+    private static int checkDateValues(CharSequence text, boolean smart) {
+        int year = number(text, 0, 4);
+        int month = number(text, 5, 2);
+        int day = number(text, 8, 2);
+        if (smart && year == 0) {
+            return error(0, Reason.YEAR_OF_ERA);
+        }
+        if (month < 1 || month > 12) {
+            return error(0, Reason.MONTH);
+        }
+        if (day < 1 || day > 31) {
+            return error(0, Reason.DAY);
+        }
+        if (!smart && day > Month.of(month).length(Year.isLeap(year))) {
+            return error(0, Reason.INVALID_DATE);
+        }
+        return NO_ERROR;
+    }
+
+    // Only called after checkDate
+    private static LocalDate date(CharSequence text, boolean smart) {
+        int year = number(text, 0, 4);
+        int month = number(text, 5, 2);
+        int day = number(text, 8, 2);
+        if (smart) {
+            day = Math.min(day, Month.of(month).length(Year.isLeap(year)));
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    // Only called after checkDateTime
+    private static LocalDateTime dateTime(CharSequence text) {
+        return date(text, true).atTime(
+                number(text, 11, 2),
+                number(text, 14, 2),
+                number(text, 17, 2));
+    }
+
+    private static boolean digits(CharSequence text, int from, int count) {
+        if (text.length() < from + count) {
+            return false;
+        }
+        for (int i = from; i < from + count; i++) {
+            if (!isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean charAt(CharSequence text, int index, char c) {
+        return index < text.length() && text.charAt(index) == c;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int number(CharSequence text, int from, int count) {
+        int n = 0;
+        for (int i = from; i < from + count; i++) {
+            n = n * 10 + (text.charAt(i) - '0');
+        }
+        return n;
+    }
+}
@@ -0,0 +1,446 @@
+package mx.oscarvarto;
+
+import fj.Equal;
+import fj.Hash;
+import fj.Ord;
+import fj.Ordering;
+import fj.Show;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.util.Objects;
+
+// Equal, Hash, Ord and Show instances for records and enums, so that they can be used with fj
+// collections and functions (nub, sort, listShow...) without writing every instance by hand.
+// Record components are read with MethodHandles built once per record class, and int, long,
+// double and boolean components are compared and hashed without boxing. Components that are
+// themselves records or enums use their derived instances.
+// - Equal compares components like the canonical record equals, and Hash agrees with Equal. A
+//   record that overrides equals is compared with its equals and hashed with its hashCode instead,
+//   and so are nested records that do. Ord is still component by component for them.
+// - Ord compares component by component, in declaration order. It needs every component to be a
+//   primitive, a record, an enum or Comparable, and throws IllegalArgumentException otherwise.
+//   Nulls go first.
+// - Show gives Name(component1,component2), without spaces, like fj's Show for products.
+// Enums are compared by ordinal and shown by name; their hash is the ordinal, which, unlike
+// Enum.hashCode, is the same on every run.
+// Instances are cached per class.
+public final class Derived<A> {
+
+    private static final ClassValue<Derived<?>> cache = new ClassValue<>() {
+        @Override
+        protected Derived<?> computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private final Equal<A> equal;
+    private final Hash<A> hash;
+    private final Show<A> show;
+    private final @Nullable Ord<A> ord;
+    private final String notComparable;
+
+    private Derived(Equal<A> equal, Hash<A> hash, Show<A> show, @Nullable Ord<A> ord, String notComparable) {
+        this.equal = equal;
+        this.hash = hash;
+        this.show = show;
+        this.ord = ord;
+        this.notComparable = notComparable;
+    }
+
+    // type must be a record or an enum
+    @SuppressWarnings("unchecked")
+    public static <A> Derived<A> derived(Class<A> type) {
+        return (Derived<A>) cache.get(type);
+    }
+
+    public static <A> Equal<A> equal(Class<A> type) {
+        return derived(type).equal();
+    }
+
+    public static <A> Hash<A> hash(Class<A> type) {
+        return derived(type).hash();
+    }
+
+    public static <A> Ord<A> ord(Class<A> type) {
+        return derived(type).ord();
+    }
+
+    public static <A> Show<A> show(Class<A> type) {
+        return derived(type).show();
+    }
+
+    public Equal<A> equal() {
+        return equal;
+    }
+
+    public Hash<A> hash() {
+        return hash;
+    }
+
+    public Show<A> show() {
+        return show;
+    }
+
+    public Ord<A> ord() {
+        var o = ord;
+        if (o == null) {
+            throw new IllegalArgumentException(notComparable);
+        }
+        return o;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Derived<?> create(Class<?> type) {
+        if (type.isEnum()) {
+            return enumDerived((Class) type);
+        }
+        if (type.isRecord()) {
+            return recordDerived(type);
+        }
+        throw new IllegalArgumentException(type.getName() + " is neither a record nor an enum");
+    }
+
+    private static <E extends Enum<E>> Derived<E> enumDerived(Class<E> type) {
+        return new Derived<>(
+                Equal.equalDef((e1, e2) -> e1 == e2),
+                Hash.hash(Enum::ordinal),
+                Show.showS(Enum::name),
+                Ord.ordDef((e1, e2) -> Ordering.fromInt(Integer.compare(e1.ordinal(), e2.ordinal()))),
+                "");
+    }
+
+    private static <R> Derived<R> recordDerived(Class<R> type) {
+        var recordComponents = type.getRecordComponents();
+        var components = new Component[recordComponents.length];
+        String notComparable = "";
+        for (int i = 0; i < components.length; i++) {
+            components[i] = component(type, recordComponents[i]);
+            if (!components[i].comparable && notComparable.isEmpty()) {
+                notComparable = "Component " + recordComponents[i].getName() + " of " + type.getName()
+                        + " is not Comparable";
+            }
+        }
+        if (overridesEquals(type)) {
+            return new Derived<>(Equal.anyEqual(), Hash.anyHash(), show(type, components),
+                    ord(components, notComparable), notComparable);
+        }
+        Equal<R> equal = Equal.equalDef((r1, r2) -> {
+            if (r1 == r2) {
+                return true;
+            }
+            for (var c : components) {
+                if (!c.eq(r1, r2)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        Hash<R> hash = Hash.hash(r -> {
+            int h = 0;
+            for (var c : components) {
+                h = 31 * h + c.hash(r);
+            }
+            return h;
+        });
+        return new Derived<>(equal, hash, show(type, components), ord(components, notComparable), notComparable);
+    }
+
+    private static boolean overridesEquals(Class<?> record) {
+        try {
+            record.getDeclaredMethod("equals", Object.class);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static <R> Show<R> show(Class<R> type, Component[] components) {
+        var name = type.getSimpleName();
+        return Show.showS(r -> {
+            var sb = new StringBuilder(name).append('(');
+            for (int i = 0; i < components.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                components[i].show(sb, r);
+            }
+            return sb.append(')').toString();
+        });
+    }
+
+    private static <R> @Nullable Ord<R> ord(Component[] components, String notComparable) {
+        return notComparable.isEmpty()
+                ? Ord.ordDef((r1, r2) -> {
+                    for (var c : components) {
+                        int cmp = c.compare(r1, r2);
+                        if (cmp != 0) {
+                            return Ordering.fromInt(cmp);
+                        }
+                    }
+                    return Ordering.EQ;
+                })
+                : null;
+    }
+
+    private static Component component(Class<?> record, RecordComponent rc) {
+        MethodHandle accessor;
+        try {
+            var lookup = MethodHandles.privateLookupIn(record, MethodHandles.lookup());
+            accessor = lookup.unreflect(rc.getAccessor());
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot read component " + rc.getName() + " of " + record.getName(), e);
+        }
+        var type = rc.getType();
+        if (type == int.class) {
+            return new IntComponent(accessor.asType(MethodType.methodType(int.class, Object.class)));
+        }
+        if (type == long.class) {
+            return new LongComponent(accessor.asType(MethodType.methodType(long.class, Object.class)));
+        }
+        if (type == double.class) {
+            return new DoubleComponent(accessor.asType(MethodType.methodType(double.class, Object.class)));
+        }
+        if (type == boolean.class) {
+            return new BooleanComponent(accessor.asType(MethodType.methodType(boolean.class, Object.class)));
+        }
+        return new ObjectComponent(accessor.asType(MethodType.methodType(Object.class, Object.class)), type);
+    }
+
+    // One record component. The record is passed as an Object so that the accessor can be
+    // invoked exactly, without boxing primitive components.
+    private abstract static class Component {
+        final MethodHandle accessor;
+        final boolean comparable;
+
+        Component(MethodHandle accessor, boolean comparable) {
+            this.accessor = accessor;
+            this.comparable = comparable;
+        }
+
+        abstract boolean eq(Object r1, Object r2);
+
+        abstract int hash(Object r);
+
+        abstract int compare(Object r1, Object r2);
+
+        abstract void show(StringBuilder sb, Object r);
+
+        static RuntimeException rethrow(Throwable t) {
+            if (t instanceof RuntimeException e) {
+                return e;
+            }
+            if (t instanceof Error e) {
+                throw e;
+            }
+            return new IllegalStateException(t);
+        }
+    }
+
+    private static final class IntComponent extends Component {
+        IntComponent(MethodHandle accessor) {
+            super(accessor, true);
+        }
+
+        int get(Object r) {
+            try {
+                return (int) accessor.invokeExact(r);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        boolean eq(Object r1, Object r2) {
+            return get(r1) == get(r2);
+        }
+
+        @Override
+        int hash(Object r) {
+            return Integer.hashCode(get(r));
+        }
+
+        @Override
+        int compare(Object r1, Object r2) {
+            return Integer.compare(get(r1), get(r2));
+        }
+
+        @Override
+        void show(StringBuilder sb, Object r) {
+            sb.append(get(r));
+        }
+    }
+
+    private static final class LongComponent extends Component {
+        LongComponent(MethodHandle accessor) {
+            super(accessor, true);
+        }
+
+        long get(Object r) {
+            try {
+                return (long) accessor.invokeExact(r);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        boolean eq(Object r1, Object r2) {
+            return get(r1) == get(r2);
+        }
+
+        @Override
+        int hash(Object r) {
+            return Long.hashCode(get(r));
+        }
+
+        @Override
+        int compare(Object r1, Object r2) {
+            return Long.compare(get(r1), get(r2));
+        }
+
+        @Override
+        void show(StringBuilder sb, Object r) {
+            sb.append(get(r));
+        }
+    }
+
+    private static final class DoubleComponent extends Component {
+        DoubleComponent(MethodHandle accessor) {
+            super(accessor, true);
+        }
+
+        double get(Object r) {
+            try {
+                return (double) accessor.invokeExact(r);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        // Same as the record's equals, which uses Double.compare
+        @Override
+        boolean eq(Object r1, Object r2) {
+            return Double.compare(get(r1), get(r2)) == 0;
+        }
+
+        @Override
+        int hash(Object r) {
+            return Double.hashCode(get(r));
+        }
+
+        @Override
+        int compare(Object r1, Object r2) {
+            return Double.compare(get(r1), get(r2));
+        }
+
+        @Override
+        void show(StringBuilder sb, Object r) {
+            sb.append(get(r));
+        }
+    }
+
+    private static final class BooleanComponent extends Component {
+        BooleanComponent(MethodHandle accessor) {
+            super(accessor, true);
+        }
+
+        boolean get(Object r) {
+            try {
+                return (boolean) accessor.invokeExact(r);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        boolean eq(Object r1, Object r2) {
+            return get(r1) == get(r2);
+        }
+
+        @Override
+        int hash(Object r) {
+            return Boolean.hashCode(get(r));
+        }
+
+        @Override
+        int compare(Object r1, Object r2) {
+            return Boolean.compare(get(r1), get(r2));
+        }
+
+        @Override
+        void show(StringBuilder sb, Object r) {
+            sb.append(get(r));
+        }
+    }
+
+    // Other primitives are boxed. Records and enums use their derived instances, looked up when
+    // first needed so that recursive records work.
+    private static final class ObjectComponent extends Component {
+        private final @Nullable Class<?> derivedType;
+
+        ObjectComponent(MethodHandle accessor, Class<?> type) {
+            super(accessor, type.isPrimitive() || type.isRecord() || type.isEnum()
+                    || Comparable.class.isAssignableFrom(type));
+            this.derivedType = type.isRecord() || type.isEnum() ? type : null;
+        }
+
+        @Nullable Object get(Object r) {
+            try {
+                return (Object) accessor.invokeExact(r);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Derived<Object> instances() {
+            return (Derived<Object>) Derived.derived(Objects.requireNonNull(derivedType));
+        }
+
+        @Override
+        boolean eq(Object r1, Object r2) {
+            var a = get(r1);
+            var b = get(r2);
+            if (a == null || b == null) {
+                return a == b;
+            }
+            return derivedType == null ? a.equals(b) : instances().equal().eq(a, b);
+        }
+
+        @Override
+        int hash(Object r) {
+            var a = get(r);
+            if (a == null) {
+                return 0;
+            }
+            return derivedType == null ? a.hashCode() : instances().hash().hash(a);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int compare(Object r1, Object r2) {
+            var a = get(r1);
+            var b = get(r2);
+            if (a == null || b == null) {
+                return a == b ? 0 : a == null ? -1 : 1;
+            }
+            return derivedType == null
+                    ? ((Comparable<Object>) a).compareTo(b)
+                    : instances().ord().compare(a, b).toInt();
+        }
+
+        @Override
+        void show(StringBuilder sb, Object r) {
+            var a = get(r);
+            if (a == null || derivedType == null) {
+                sb.append(a);
+            } else {
+                sb.append(instances().show().showS(a));
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.List;
+import fj.data.Validation;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+// Runs the same pure functions as the List based code (Fs, Validation rules, Pipelines) over an
+// unbounded java.util.concurrent.Flow feed, one element at a time.
+// A FlowStage subscribes to an upstream Publisher and publishes the results to its own
+// subscribers, through a SubmissionPublisher: results are delivered on the executor of the
+// Settings (virtual threads by default), which is the async boundary between the two sides.
+// Backpressure: upstream is asked for at most batchSize elements at a time, and asked for more
+// once half of them have been handled. When the buffer of a downstream subscriber is full,
+// publishing blocks, so no more is asked from upstream until it drains. Memory stays bounded by
+// batchSize plus bufferSize per subscriber, whatever the length of the feed.
+// Validation stages publish successes, and send the failures to failures(), a Publisher of its own.
+// Like with any SubmissionPublisher, results and failures that nobody is subscribed to are
+// dropped: subscribe downstream before subscribing the stage to upstream.
+// If a function throws, upstream is cancelled and both publishers complete with the exception.
+public final class FlowStage<A, B> extends SubmissionPublisher<B> implements Flow.Processor<A, B> {
+
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Settings settings;
+    private final Handler<A, B> handler;
+    private final SubmissionPublisher<Object> failures;
+    private Flow.@Nullable Subscription subscription;
+    private int outstanding;
+
+    // What a stage does with one element: submit its results (or failures) with the stage
+    @FunctionalInterface
+    private interface Handler<A, B> {
+        void handle(A a, FlowStage<A, B> stage);
+    }
+
+    private FlowStage(Settings settings, Handler<A, B> handler) {
+        super(settings.executor(), settings.bufferSize());
+        this.settings = settings;
+        this.handler = handler;
+        this.failures = new SubmissionPublisher<>(settings.executor(), settings.bufferSize());
+    }
+
+    public static <A, B> FlowStage<A, B> map(F<A, B> f, Settings settings) {
+        return new FlowStage<A, B>(settings, (a, stage) -> stage.submit(f.f(a)));
+    }
+
+    public static <A, B> FlowStage<A, B> map(F<A, B> f) {
+        return map(f, Settings.settings());
+    }
+
+    // Successes go downstream, failures to failures()
+    public static <A, E, B> FlowStage<A, B> validate(F<A, ? extends Validation<? extends E, ? extends B>> rule,
+                                                     Settings settings) {
+        return new FlowStage<A, B>(settings, (a, stage) -> {
+            var result = rule.f(a);
+            if (result.isSuccess()) {
+                stage.submit(result.success());
+            } else {
+                stage.failures.submit(result.fail());
+            }
+        });
+    }
+
+    public static <A, E, B> FlowStage<A, B> validate(F<A, ? extends Validation<? extends E, ? extends B>> rule) {
+        return validate(rule, Settings.settings());
+    }
+
+    // Every element goes through all the stages of the pipeline (which may filter it out, or turn
+    // it into several)
+    public static <A, B> FlowStage<A, B> pipeline(Pipeline<A, B> pipeline, Settings settings) {
+        return new FlowStage<A, B>(settings, (a, stage) -> pipeline.forEach(List.single(a), stage::submit));
+    }
+
+    public static <A, B> FlowStage<A, B> pipeline(Pipeline<A, B> pipeline) {
+        return pipeline(pipeline, Settings.settings());
+    }
+
+    // The failures of a validate stage. The type is up to the caller: it must be the E of the rule.
+    @SuppressWarnings("unchecked")
+    public <E> Flow.Publisher<E> failures() {
+        return (Flow.Publisher<E>) (Flow.Publisher<?>) failures;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        outstanding = settings.batchSize();
+        subscription.request(outstanding);
+    }
+
+    @Override
+    public void onNext(A item) {
+        try {
+            handler.handle(item, this);
+        } catch (RuntimeException | Error e) {
+            var s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+            onError(e);
+            return;
+        }
+        // Ask for a new batch when half of the previous one has been handled
+        if (--outstanding <= settings.batchSize() / 2) {
+            var s = subscription;
+            if (s != null) {
+                s.request(settings.batchSize() - outstanding);
+            }
+            outstanding = settings.batchSize();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closeExceptionally(throwable);
+        failures.closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+        failures.close();
+    }
+
+    // executor: where results are delivered to subscribers.
+    // bufferSize: results buffered per subscriber before publishing blocks (rounded up to a power of two).
+    // batchSize: elements asked from upstream at a time.
+    public record Settings(Executor executor, int bufferSize, int batchSize) {
+        public static final int DEFAULT_BATCH_SIZE = 64;
+
+        public Settings {
+            if (bufferSize < 1 || batchSize < 1) {
+                throw new IllegalArgumentException("bufferSize and batchSize must be positive: " + bufferSize + ", " + batchSize);
+            }
+        }
+
+        public static Settings settings() {
+            return new Settings(VIRTUAL_THREADS, Flow.defaultBufferSize(), DEFAULT_BATCH_SIZE);
+        }
+
+        public Settings withExecutor(Executor executor) {
+            return new Settings(executor, bufferSize, batchSize);
+        }
+
+        public Settings withBufferSize(int bufferSize) {
+            return new Settings(executor, bufferSize, batchSize);
+        }
+
+        public Settings withBatchSize(int batchSize) {
+            return new Settings(executor, bufferSize, batchSize);
+        }
+    }
+}
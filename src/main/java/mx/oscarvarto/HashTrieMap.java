@@ -0,0 +1,468 @@
+package mx.oscarvarto;
+
+import fj.Equal;
+import fj.F2;
+import fj.Hash;
+import fj.P;
+import fj.P2;
+import fj.data.List;
+import fj.data.Option;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// An immutable hash map, stored as a hash array mapped trie (the CHAMP variant): every node
+// branches on 5 bits of the key hash, and holds its entries inline and its sub-nodes in one array.
+// set and delete copy the O(log32 n) nodes on the path to the key and share everything else,
+// instead of rebuilding the whole structure like a fj.data.Set built from scratch would.
+// Keys are compared with an fj Equal and hashed with a consistent fj Hash.
+public final class HashTrieMap<K, V> implements Iterable<P2<K, V>> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Equal<K> eq;
+    private final Hash<K> hash;
+    private final Node root;
+    private final int size;
+
+    private HashTrieMap(Equal<K> eq, Hash<K> hash, Node root, int size) {
+        this.eq = eq;
+        this.hash = hash;
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <K, V> HashTrieMap<K, V> empty(Equal<K> eq, Hash<K> hash) {
+        return new HashTrieMap<>(eq, hash, BitmapNode.EMPTY, 0);
+    }
+
+    // Keys compared with equals and hashed with hashCode
+    public static <K, V> HashTrieMap<K, V> empty() {
+        return empty(Equal.anyEqual(), Hash.anyHash());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Equal<K> eq() {
+        return eq;
+    }
+
+    public Hash<K> hash() {
+        return hash;
+    }
+
+    public Option<V> get(K key) {
+        V v = getOrNull(key);
+        return v == null ? Option.none() : Option.some(v);
+    }
+
+    // Without allocating an Option
+    @SuppressWarnings("unchecked")
+    public @Nullable V getOrNull(K key) {
+        return (V) root.find(key, hashOf(key), 0, this);
+    }
+
+    public boolean contains(K key) {
+        return getOrNull(key) != null;
+    }
+
+    public HashTrieMap<K, V> set(K key, V value) {
+        var change = new Change();
+        var newRoot = root.set(key, value, hashOf(key), 0, this, change);
+        return newRoot == root ? this : new HashTrieMap<>(eq, hash, newRoot, change.added ? size + 1 : size);
+    }
+
+    public HashTrieMap<K, V> delete(K key) {
+        var change = new Change();
+        var newRoot = root.delete(key, hashOf(key), 0, this, change);
+        return newRoot == root ? this : new HashTrieMap<>(eq, hash, newRoot, size - 1);
+    }
+
+    public List<K> keys() {
+        var keys = new List.Buffer<K>();
+        for (var entry : this) {
+            keys.snoc(entry._1());
+        }
+        return keys.toList();
+    }
+
+    public List<V> values() {
+        var values = new List.Buffer<V>();
+        for (var entry : this) {
+            values.snoc(entry._2());
+        }
+        return values.toList();
+    }
+
+    public List<P2<K, V>> toList() {
+        return List.iterableList(this);
+    }
+
+    public <B> B foldLeft(F2<B, P2<K, V>, B> f, B zero) {
+        B acc = zero;
+        for (var entry : this) {
+            acc = f.f(acc, entry);
+        }
+        return acc;
+    }
+
+    // In no particular order
+    @Override
+    public Iterator<P2<K, V>> iterator() {
+        return new EntryIterator<>(root);
+    }
+
+    private int hashOf(K key) {
+        int h = hash.hash(key);
+        return h ^ (h >>> 16);
+    }
+
+    private boolean equal(Object a, Object b) {
+        @SuppressWarnings("unchecked")
+        var result = eq.eq((K) a, (K) b);
+        return result;
+    }
+
+    private static final class Change {
+        boolean added;
+    }
+
+    // Keys and values are kept as Object: nodes are shared by maps of any type
+    private abstract static class Node {
+        abstract @Nullable Object find(Object key, int hash, int shift, HashTrieMap<?, ?> map);
+
+        abstract Node set(Object key, Object value, int hash, int shift, HashTrieMap<?, ?> map, Change change);
+
+        abstract Node delete(Object key, int hash, int shift, HashTrieMap<?, ?> map, Change change);
+
+        abstract int entryCount();
+
+        abstract int nodeCount();
+
+        abstract Object key(int i);
+
+        abstract Object value(int i);
+
+        abstract Node node(int i);
+    }
+
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, 0, new Object[0]);
+
+        final int dataMap;
+        final int nodeMap;
+        // key0, value0, key1, value1, ..., then the sub-nodes in reverse order
+        final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+
+        private int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return content.length - 1 - Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        @Override
+        @Nullable Object find(Object key, int hash, int shift, HashTrieMap<?, ?> map) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                return map.equal(content[2 * i], key) ? content[2 * i + 1] : null;
+            }
+            if ((nodeMap & bit) != 0) {
+                return ((Node) content[nodeIndex(bit)]).find(key, hash, shift + BITS, map);
+            }
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Node set(Object key, Object value, int hash, int shift, HashTrieMap<?, ?> map, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                Object existing = content[2 * i];
+                if (map.equal(existing, key)) {
+                    if (content[2 * i + 1] == value) {
+                        return this;
+                    }
+                    var copy = content.clone();
+                    copy[2 * i + 1] = value;
+                    return new BitmapNode(dataMap, nodeMap, copy);
+                }
+                // Two keys share this slot: push both down into a new sub-node
+                int existingHash = ((HashTrieMap<Object, ?>) map).hashOf(existing);
+                var sub = merge(existing, content[2 * i + 1], existingHash, key, value, hash, shift + BITS);
+                change.added = true;
+                return inlineToNode(bit, i, sub);
+            }
+            if ((nodeMap & bit) != 0) {
+                int n = nodeIndex(bit);
+                var sub = (Node) content[n];
+                var newSub = sub.set(key, value, hash, shift + BITS, map, change);
+                if (newSub == sub) {
+                    return this;
+                }
+                var copy = content.clone();
+                copy[n] = newSub;
+                return new BitmapNode(dataMap, nodeMap, copy);
+            }
+            change.added = true;
+            int i = dataIndex(bit);
+            var copy = new Object[content.length + 2];
+            System.arraycopy(content, 0, copy, 0, 2 * i);
+            copy[2 * i] = key;
+            copy[2 * i + 1] = value;
+            System.arraycopy(content, 2 * i, copy, 2 * i + 2, content.length - 2 * i);
+            return new BitmapNode(dataMap | bit, nodeMap, copy);
+        }
+
+        private static Node merge(Object k0, Object v0, int h0, Object k1, Object v1, int h1, int shift) {
+            if (shift >= Integer.SIZE) {
+                return new CollisionNode(new Object[]{k0, v0, k1, v1});
+            }
+            int b0 = bit(h0, shift);
+            int b1 = bit(h1, shift);
+            if (b0 == b1) {
+                return new BitmapNode(0, b0, new Object[]{merge(k0, v0, h0, k1, v1, h1, shift + BITS)});
+            }
+            // Entries are ordered by bit, and 1 << 31 is negative
+            return Integer.compareUnsigned(b0, b1) < 0
+                    ? new BitmapNode(b0 | b1, 0, new Object[]{k0, v0, k1, v1})
+                    : new BitmapNode(b0 | b1, 0, new Object[]{k1, v1, k0, v0});
+        }
+
+        // Replaces entry i (at bit) by sub
+        private BitmapNode inlineToNode(int bit, int i, Node sub) {
+            int dataEnd = 2 * Integer.bitCount(dataMap);
+            // Sub-nodes for lower bits are at the end of content
+            int lowerNodes = Integer.bitCount(nodeMap & (bit - 1));
+            int length = content.length;
+            var copy = new Object[length - 1];
+            System.arraycopy(content, 0, copy, 0, 2 * i);
+            System.arraycopy(content, 2 * i + 2, copy, 2 * i, dataEnd - 2 * i - 2);
+            System.arraycopy(content, dataEnd, copy, dataEnd - 2, length - lowerNodes - dataEnd);
+            copy[length - 2 - lowerNodes] = sub;
+            System.arraycopy(content, length - lowerNodes, copy, length - 1 - lowerNodes, lowerNodes);
+            return new BitmapNode(dataMap ^ bit, nodeMap | bit, copy);
+        }
+
+        // Replaces sub-node (at bit) by its only entry
+        private BitmapNode nodeToInline(int bit, Object key, Object value) {
+            int i = dataIndex(bit);
+            int n = nodeIndex(bit);
+            var copy = new Object[content.length + 1];
+            System.arraycopy(content, 0, copy, 0, 2 * i);
+            copy[2 * i] = key;
+            copy[2 * i + 1] = value;
+            System.arraycopy(content, 2 * i, copy, 2 * i + 2, n - 2 * i);
+            System.arraycopy(content, n + 1, copy, n + 2, content.length - n - 1);
+            return new BitmapNode(dataMap | bit, nodeMap ^ bit, copy);
+        }
+
+        @Override
+        Node delete(Object key, int hash, int shift, HashTrieMap<?, ?> map, Change change) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                if (!map.equal(content[2 * i], key)) {
+                    return this;
+                }
+                var copy = new Object[content.length - 2];
+                System.arraycopy(content, 0, copy, 0, 2 * i);
+                System.arraycopy(content, 2 * i + 2, copy, 2 * i, content.length - 2 * i - 2);
+                return new BitmapNode(dataMap ^ bit, nodeMap, copy);
+            }
+            if ((nodeMap & bit) != 0) {
+                int n = nodeIndex(bit);
+                var sub = (Node) content[n];
+                var newSub = sub.delete(key, hash, shift + BITS, map, change);
+                if (newSub == sub) {
+                    return this;
+                }
+                if (newSub.nodeCount() == 0 && newSub.entryCount() == 1) {
+                    // Keep the trie canonical: a single entry lives in its parent
+                    return nodeToInline(bit, newSub.key(0), newSub.value(0));
+                }
+                var copy = content.clone();
+                copy[n] = newSub;
+                return new BitmapNode(dataMap, nodeMap, copy);
+            }
+            return this;
+        }
+
+        @Override
+        int entryCount() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        int nodeCount() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Object key(int i) {
+            return content[2 * i];
+        }
+
+        @Override
+        Object value(int i) {
+            return content[2 * i + 1];
+        }
+
+        @Override
+        Node node(int i) {
+            return (Node) content[content.length - 1 - i];
+        }
+    }
+
+    // Keys whose 32 hash bits are all the same
+    private static final class CollisionNode extends Node {
+        // key0, value0, key1, value1, ...
+        final Object[] entries;
+
+        CollisionNode(Object[] entries) {
+            this.entries = entries;
+        }
+
+        private int indexOf(Object key, HashTrieMap<?, ?> map) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (map.equal(entries[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        @Nullable Object find(Object key, int hash, int shift, HashTrieMap<?, ?> map) {
+            int i = indexOf(key, map);
+            return i < 0 ? null : entries[i + 1];
+        }
+
+        @Override
+        Node set(Object key, Object value, int hash, int shift, HashTrieMap<?, ?> map, Change change) {
+            int i = indexOf(key, map);
+            if (i >= 0) {
+                if (entries[i + 1] == value) {
+                    return this;
+                }
+                var copy = entries.clone();
+                copy[i + 1] = value;
+                return new CollisionNode(copy);
+            }
+            change.added = true;
+            var copy = Arrays.copyOf(entries, entries.length + 2);
+            copy[entries.length] = key;
+            copy[entries.length + 1] = value;
+            return new CollisionNode(copy);
+        }
+
+        @Override
+        Node delete(Object key, int hash, int shift, HashTrieMap<?, ?> map, Change change) {
+            int i = indexOf(key, map);
+            if (i < 0) {
+                return this;
+            }
+            var copy = new Object[entries.length - 2];
+            System.arraycopy(entries, 0, copy, 0, i);
+            System.arraycopy(entries, i + 2, copy, i, entries.length - i - 2);
+            return new CollisionNode(copy);
+        }
+
+        @Override
+        int entryCount() {
+            return entries.length / 2;
+        }
+
+        @Override
+        int nodeCount() {
+            return 0;
+        }
+
+        @Override
+        Object key(int i) {
+            return entries[2 * i];
+        }
+
+        @Override
+        Object value(int i) {
+            return entries[2 * i + 1];
+        }
+
+        @Override
+        Node node(int i) {
+            throw new IndexOutOfBoundsException(i);
+        }
+    }
+
+    // Depth first, with an explicit stack of the nodes being visited (the trie is at most 8 deep)
+    private static final class EntryIterator<K, V> implements Iterator<P2<K, V>> {
+        private final Node[] nodes = new Node[Integer.SIZE / BITS + 2];
+        private final int[] nextEntry = new int[nodes.length];
+        private final int[] nextNode = new int[nodes.length];
+        private int depth;
+
+        EntryIterator(Node root) {
+            nodes[0] = root;
+            advance();
+        }
+
+        // Moves to a node that has an entry left, or empties the stack
+        private void advance() {
+            while (depth >= 0) {
+                var node = nodes[depth];
+                if (nextEntry[depth] < node.entryCount()) {
+                    return;
+                }
+                if (nextNode[depth] < node.nodeCount()) {
+                    var child = node.node(nextNode[depth]++);
+                    depth++;
+                    nodes[depth] = child;
+                    nextEntry[depth] = 0;
+                    nextNode[depth] = 0;
+                } else {
+                    depth--;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth >= 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public P2<K, V> next() {
+            if (depth < 0) {
+                throw new NoSuchElementException();
+            }
+            var node = nodes[depth];
+            int i = nextEntry[depth]++;
+            var entry = P.p((K) node.key(i), (V) node.value(i));
+            advance();
+            return entry;
+        }
+    }
+}
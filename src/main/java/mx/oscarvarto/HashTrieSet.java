@@ -0,0 +1,103 @@
+package mx.oscarvarto;
+
+import fj.Equal;
+import fj.Hash;
+import fj.Ord;
+import fj.P2;
+import fj.Unit;
+import fj.data.List;
+import fj.data.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+// An immutable hash set backed by a HashTrieMap: insert and delete copy O(log32 n) nodes.
+// Meant to be shared through an AtomicRef and updated in place of a fj.data.Set that is rebuilt
+// from scratch (CollectionUtils.setFromJava, StringUtils.filterNullOrBlank) on every change.
+public final class HashTrieSet<A> implements Iterable<A> {
+
+    private final HashTrieMap<A, Unit> map;
+
+    private HashTrieSet(HashTrieMap<A, Unit> map) {
+        this.map = map;
+    }
+
+    public static <A> HashTrieSet<A> empty(Equal<A> eq, Hash<A> hash) {
+        return new HashTrieSet<>(HashTrieMap.empty(eq, hash));
+    }
+
+    public static <A> HashTrieSet<A> empty() {
+        return new HashTrieSet<>(HashTrieMap.empty());
+    }
+
+    // Null elements (and a null collection) are ignored
+    public static <A> HashTrieSet<A> fromJava(Equal<A> eq, Hash<A> hash,
+                                              @Nullable Collection<? extends @Nullable A> as) {
+        var set = HashTrieSet.<A>empty(eq, hash);
+        if (as != null) {
+            for (A a : as) {
+                if (a != null) {
+                    set = set.insert(a);
+                }
+            }
+        }
+        return set;
+    }
+
+    public boolean member(A a) {
+        return map.contains(a);
+    }
+
+    public HashTrieSet<A> insert(A a) {
+        var newMap = map.set(a, Unit.unit());
+        return newMap == map ? this : new HashTrieSet<>(newMap);
+    }
+
+    public HashTrieSet<A> delete(A a) {
+        var newMap = map.delete(a);
+        return newMap == map ? this : new HashTrieSet<>(newMap);
+    }
+
+    public HashTrieSet<A> union(Iterable<A> as) {
+        var set = this;
+        for (A a : as) {
+            set = set.insert(a);
+        }
+        return set;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public List<A> toList() {
+        return map.keys();
+    }
+
+    // For when the elements are needed in order
+    public Set<A> toSet(Ord<A> o) {
+        return Set.iterableSet(o, this);
+    }
+
+    // In no particular order
+    @Override
+    public Iterator<A> iterator() {
+        Iterator<P2<A, Unit>> entries = map.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public A next() {
+                return entries.next()._1();
+            }
+        };
+    }
+}
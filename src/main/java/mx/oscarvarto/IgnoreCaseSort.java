@@ -0,0 +1,115 @@
+package mx.oscarvarto;
+
+import fj.data.List;
+import fj.data.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+import static mx.oscarvarto.StringUtils.caseInsensitiveStringOrd;
+
+// Bulk sorting in the order of caseInsensitiveStringOrd (String.compareToIgnoreCase).
+// Sorting with the Ord folds the case of both strings on every comparison, so every string is
+// folded O(log n) times. Here every string is folded once into a collation key: its first 4 folded
+// chars packed in a long, compared as a number, and the whole folded string for ties. Keys are
+// sorted with Arrays.parallelSort (a parallel merge sort, so the sort is stable).
+// compareToIgnoreCase compares toLowerCase(toUpperCase(c)) char by char, then lengths, which is
+// what comparing the folded strings does. Strings with surrogate pairs are compared by code point,
+// so those are compared with compareToIgnoreCase itself.
+// Null elements are skipped.
+public final class IgnoreCaseSort {
+
+    private static final int PREFIX_CHARS = Long.SIZE / Character.SIZE;
+
+    private IgnoreCaseSort() {
+    }
+
+    private record Key(long prefix, String folded, String original, boolean surrogates) {
+    }
+
+    private static final Comparator<Key> keyOrder = (k1, k2) -> {
+        if (k1.surrogates() || k2.surrogates()) {
+            return k1.original().compareToIgnoreCase(k2.original());
+        }
+        int c = Long.compareUnsigned(k1.prefix(), k2.prefix());
+        return c != 0 ? c : k1.folded().compareTo(k2.folded());
+    };
+
+    private static Key key(String s) {
+        int length = s.length();
+        char @Nullable [] folded = null;
+        boolean surrogates = false;
+        long prefix = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            char f = Character.toLowerCase(Character.toUpperCase(c));
+            surrogates |= Character.isSurrogate(c);
+            if (f != c && folded == null) {
+                folded = s.toCharArray();
+            }
+            if (folded != null) {
+                folded[i] = f;
+            }
+            if (i < PREFIX_CHARS) {
+                prefix |= (long) f << (Character.SIZE * (PREFIX_CHARS - 1 - i));
+            }
+        }
+        // Strings that are already folded are their own key
+        return new Key(prefix, folded == null ? s : new String(folded), s, surrogates);
+    }
+
+    // Same as List.iterableList(strings).sort(caseInsensitiveStringOrd), without the nulls.
+    // Strings equal ignoring case keep their relative order.
+    public static List<String> sorted(Collection<? extends @Nullable String> strings) {
+        var keys = sortedKeys(strings);
+        List<String> result = List.nil();
+        for (int i = keys.length - 1; i >= 0; i--) {
+            result = result.cons(keys[i].original());
+        }
+        return result;
+    }
+
+    // Sorts strings (which must not have nulls) in place
+    public static void sort(String[] strings) {
+        var keys = new Key[strings.length];
+        for (int i = 0; i < strings.length; i++) {
+            keys[i] = key(strings[i]);
+        }
+        Arrays.parallelSort(keys, keyOrder);
+        for (int i = 0; i < keys.length; i++) {
+            strings[i] = keys[i].original();
+        }
+    }
+
+    // A Set ordered by caseInsensitiveStringOrd, with the first (in iteration order) of every group
+    // of strings equal ignoring case.
+    // Only the de-duplication uses the keys. fj.data.Set can only be built by inserting, so the
+    // tree is still built with n log n caseInsensitiveStringOrd comparisons of the distinct strings.
+    // That makes this slower than Set.iterableSet when there are few duplicates
+    // (see IgnoreCaseSortBenchmark).
+    public static Set<String> set(Collection<? extends @Nullable String> strings) {
+        var keys = sortedKeys(strings);
+        var distinct = new ArrayList<String>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keyOrder.compare(keys[i - 1], keys[i]) != 0) {
+                distinct.add(keys[i].original());
+            }
+        }
+        return Set.iterableSet(caseInsensitiveStringOrd, distinct);
+    }
+
+    private static Key[] sortedKeys(Collection<? extends @Nullable String> strings) {
+        var keys = new Key[CollectionUtils.countNonNull(strings)];
+        int i = 0;
+        for (String s : strings) {
+            if (s != null) {
+                keys[i++] = key(s);
+            }
+        }
+        Arrays.parallelSort(keys, keyOrder);
+        return keys;
+    }
+}
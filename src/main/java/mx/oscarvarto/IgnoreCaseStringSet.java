@@ -0,0 +1,163 @@
+package mx.oscarvarto;
+
+import fj.Equal;
+import fj.Ord;
+import fj.data.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static mx.oscarvarto.StringUtils.caseInsensitiveStringOrd;
+import static mx.oscarvarto.StringUtils.stringIgnoreCaseEq;
+
+// An immutable set of strings where membership follows stringIgnoreCaseEq (String.equalsIgnoreCase).
+// fj.data.Set with caseInsensitiveStringOrd is a red-black tree: every lookup does O(log n)
+// compareToIgnoreCase calls. This set is an open addressing hash table instead. Every string's
+// case folded hash is computed once, when the set is built, so a lookup folds the case of the
+// looked up string once and usually does a single equalsIgnoreCase.
+// When two elements are equal ignoring case, the first one is kept.
+public final class IgnoreCaseStringSet implements Iterable<String> {
+
+    private static final IgnoreCaseStringSet EMPTY = new IgnoreCaseStringSet(new @Nullable String[1], new int[1], 0);
+
+    // At most half of the slots are used, which keeps probe sequences short
+    private final @Nullable String[] slots;
+    private final int[] hashes;
+    private final int size;
+
+    private IgnoreCaseStringSet(@Nullable String[] slots, int[] hashes, int size) {
+        this.slots = slots;
+        this.hashes = hashes;
+        this.size = size;
+    }
+
+    public static IgnoreCaseStringSet empty() {
+        return EMPTY;
+    }
+
+    public static IgnoreCaseStringSet set(String... ss) {
+        return build(Arrays.asList(ss), false);
+    }
+
+    // Null elements (and a null collection) are ignored
+    public static IgnoreCaseStringSet fromJava(@Nullable Collection<? extends @Nullable String> ss) {
+        return ss == null ? EMPTY : build(ss, false);
+    }
+
+    // Like StringUtils.filterNullOrBlank: null and blank elements are dropped while building
+    public static IgnoreCaseStringSet nonBlank(@Nullable Collection<? extends @Nullable String> ss) {
+        return ss == null ? EMPTY : build(ss, true);
+    }
+
+    private static IgnoreCaseStringSet build(Collection<? extends @Nullable String> ss, boolean skipBlank) {
+        var slots = new @Nullable String[tableSize(ss.size())];
+        var hashes = new int[slots.length];
+        int mask = slots.length - 1;
+        int size = 0;
+        for (String s : ss) {
+            if (s == null || skipBlank && s.isBlank()) {
+                continue;
+            }
+            int hash = foldedHash(s);
+            int i = hash & mask;
+            while (slots[i] != null && !(hashes[i] == hash && s.equalsIgnoreCase(slots[i]))) {
+                i = (i + 1) & mask;
+            }
+            if (slots[i] == null) {
+                slots[i] = s;
+                hashes[i] = hash;
+                size++;
+            }
+        }
+        return size == 0 ? EMPTY : new IgnoreCaseStringSet(slots, hashes, size);
+    }
+
+    private static int tableSize(int elements) {
+        int size = Integer.highestOneBit(Math.max(1, elements) * 2 - 1) << 1;
+        return Math.max(size, 2);
+    }
+
+    // Consistent with equalsIgnoreCase: two strings equal ignoring case fold to the same code points
+    static int foldedHash(String s) {
+        int h = 0;
+        for (int i = 0, length = s.length(); i < length; ) {
+            int cp = s.codePointAt(i);
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(cp));
+            i += Character.charCount(cp);
+        }
+        // Spread the bits, linear probing only looks at the low ones
+        return (h ^ (h >>> 16)) * 0x9E3779B9;
+    }
+
+    public boolean member(@Nullable String s) {
+        if (s == null || size == 0) {
+            return false;
+        }
+        int hash = foldedHash(s);
+        int mask = slots.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            String slot = slots[i];
+            if (slot == null) {
+                return false;
+            }
+            if (hashes[i] == hash && s.equalsIgnoreCase(slot)) {
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Equal<String> eq() {
+        return stringIgnoreCaseEq;
+    }
+
+    // For when the elements are needed in order
+    public Set<String> toSet(Ord<String> o) {
+        return Set.iterableSet(o, this);
+    }
+
+    public Set<String> toSet() {
+        return toSet(caseInsensitiveStringOrd);
+    }
+
+    // In no particular order
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                int i = from;
+                while (i < slots.length && slots[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < slots.length;
+            }
+
+            @Override
+            public String next() {
+                String s = next < slots.length ? slots[next] : null;
+                if (s == null) {
+                    throw new NoSuchElementException();
+                }
+                next = advance(next + 1);
+                return s;
+            }
+        };
+    }
+}
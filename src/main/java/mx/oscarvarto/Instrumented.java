@@ -0,0 +1,295 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.Either;
+import fj.data.List;
+import fj.data.Option;
+import fj.data.Validation;
+import fj.function.Effect1;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Metrics for the functions of a composed chain, to find out which one eats the latency budget.
+// Every function wrapped by f, option, validation, either, predicate or list is timed on each
+// call, and counted as failed when it throws or its result says so (none, fail, left, false).
+// Pipeline stages are measured per run through pipelineObserver.
+// Metrics are kept by name, so wrapping several functions with the same name adds them up.
+// They are exported as JFR events (enable them with -XX:StartFlightRecording) and as slf4j
+// summaries, on demand (report) or periodically (reportEvery).
+@Slf4j
+public final class Instrumented {
+
+    private static final int NO_SIZE = -1;
+
+    private final String name;
+    private final ConcurrentHashMap<String, Metrics> metrics = new ConcurrentHashMap<>();
+
+    public Instrumented(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Metrics metrics(String function) {
+        return metrics.computeIfAbsent(function, Metrics::new);
+    }
+
+    // Sorted by name
+    public java.util.List<Metrics> allMetrics() {
+        return metrics.values().stream().sorted(Comparator.comparing(Metrics::name)).toList();
+    }
+
+    public <A, B> F<A, B> f(String function, F<A, B> f) {
+        return instrument(function, f, b -> false, a -> NO_SIZE, b -> NO_SIZE);
+    }
+
+    public <A, B> F<A, Option<B>> option(String function, F<A, Option<B>> f) {
+        return instrument(function, f, Option::isNone, a -> NO_SIZE, b -> NO_SIZE);
+    }
+
+    public <A, E, B> F<A, Validation<E, B>> validation(String function, F<A, Validation<E, B>> f) {
+        return instrument(function, f, Validation::isFail, a -> NO_SIZE, b -> NO_SIZE);
+    }
+
+    public <A, E, B> F<A, Either<E, B>> either(String function, F<A, Either<E, B>> f) {
+        return instrument(function, f, Either::isLeft, a -> NO_SIZE, b -> NO_SIZE);
+    }
+
+    // For validation rules (RuleSet.rule, Validation.condition): false counts as a failure
+    public <A> F<A, Boolean> predicate(String function, F<A, Boolean> p) {
+        return instrument(function, p, b -> !b, a -> NO_SIZE, b -> NO_SIZE);
+    }
+
+    // A whole list step, with the sizes of its input and output lists
+    public <A, B> F<List<A>, List<B>> list(String function, F<List<A>, List<B>> f) {
+        return instrument(function, f, b -> false, List::length, List::length);
+    }
+
+    private <A, B> F<A, B> instrument(String function, F<A, B> f, F<B, Boolean> failed,
+                                      F<A, Integer> inSize, F<B, Integer> outSize) {
+        var m = metrics(function);
+        return a -> {
+            var event = new CallEvent();
+            event.begin();
+            long start = System.nanoTime();
+            B b;
+            try {
+                b = f.f(a);
+            } catch (RuntimeException | Error e) {
+                m.recordException(System.nanoTime() - start);
+                if (event.shouldCommit()) {
+                    event.set(name, function, true, NO_SIZE, NO_SIZE);
+                    event.commit();
+                }
+                throw e;
+            }
+            long nanos = System.nanoTime() - start;
+            boolean failure = failed.f(b);
+            int in = inSize.f(a);
+            int out = outSize.f(b);
+            m.record(nanos, failure, in, out);
+            if (event.shouldCommit()) {
+                event.set(name, function, failure, in, out);
+                event.commit();
+            }
+            return b;
+        };
+    }
+
+    // For Pipeline.observe. Each run of the pipeline counts as one call of each stage, with the
+    // time the stage took over the whole run. Stages are named pipeline/stage.
+    public Effect1<Pipeline.StageStats> pipelineObserver(String pipeline) {
+        return stats -> {
+            var stage = pipeline + "/" + stats.name();
+            metrics(stage).record(stats.nanos(), false, stats.elementsIn(), stats.elementsOut());
+            var event = new StageEvent();
+            if (event.shouldCommit()) {
+                event.instrumented = name;
+                event.stage = stage;
+                event.index = stats.index();
+                event.elementsIn = stats.elementsIn();
+                event.elementsOut = stats.elementsOut();
+                event.nanos = stats.nanos();
+                event.commit();
+            }
+        };
+    }
+
+    // Logs one line per function that was called at least once
+    public void report() {
+        for (var m : allMetrics()) {
+            if (m.calls() > 0) {
+                log.info("[{}] {}", name, m.summary());
+            }
+        }
+    }
+
+    // Calls report on a daemon thread every period, until the returned Reporting is closed
+    public Reporting reportEvery(Duration period) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "instrumented-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1L, period.toMillis());
+        scheduler.scheduleAtFixedRate(this::report, millis, millis, TimeUnit.MILLISECONDS);
+        return scheduler::shutdownNow;
+    }
+
+    @FunctionalInterface
+    public interface Reporting extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static final class Metrics {
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder exceptions = new LongAdder();
+        private final LongAdder elementsIn = new LongAdder();
+        private final LongAdder elementsOut = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Metrics(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, boolean failed, long in, long out) {
+            calls.increment();
+            if (failed) {
+                failures.increment();
+            }
+            if (in != NO_SIZE) {
+                elementsIn.add(in);
+            }
+            if (out != NO_SIZE) {
+                elementsOut.add(out);
+            }
+            latency.record(nanos);
+        }
+
+        void recordException(long nanos) {
+            exceptions.increment();
+            record(nanos, true, NO_SIZE, NO_SIZE);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long calls() {
+            return calls.sum();
+        }
+
+        // Includes the calls that threw
+        public long failures() {
+            return failures.sum();
+        }
+
+        public long exceptions() {
+            return exceptions.sum();
+        }
+
+        public double failureRate() {
+            long n = calls();
+            return n == 0 ? 0.0 : (double) failures() / n;
+        }
+
+        public long elementsIn() {
+            return elementsIn.sum();
+        }
+
+        public long elementsOut() {
+            return elementsOut.sum();
+        }
+
+        // In nanoseconds
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        public String summary() {
+            var summary = String.format(Locale.ROOT,
+                    "%s: %,d calls, %.2f%% failed, %,d exceptions, p50 %s, p99 %s, max %s",
+                    name, calls(), failureRate() * 100, exceptions(),
+                    duration(latency.percentile(50)), duration(latency.percentile(99)), duration(latency.max()));
+            return elementsIn() == 0 && elementsOut() == 0
+                    ? summary
+                    : summary + String.format(Locale.ROOT, ", %,d in, %,d out", elementsIn(), elementsOut());
+        }
+
+        private static String duration(long nanos) {
+            if (nanos < 1_000) {
+                return nanos + "ns";
+            }
+            if (nanos < 1_000_000) {
+                return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+            }
+            return nanos < 1_000_000_000
+                    ? String.format(Locale.ROOT, "%.1fms", nanos / 1e6)
+                    : String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+        }
+    }
+
+    @Name("mx.oscarvarto.Call")
+    @Label("Instrumented Call")
+    @Category({"mx.oscarvarto", "Instrumented"})
+    @Description("One call of an instrumented function")
+    static class CallEvent extends Event {
+        @Label("Instrumented")
+        String instrumented = "";
+        @Label("Function")
+        String function = "";
+        @Label("Failed")
+        boolean failed;
+        @Label("Input Size")
+        int inputSize;
+        @Label("Output Size")
+        int outputSize;
+
+        void set(String instrumented, String function, boolean failed, int inputSize, int outputSize) {
+            this.instrumented = instrumented;
+            this.function = function;
+            this.failed = failed;
+            this.inputSize = inputSize;
+            this.outputSize = outputSize;
+        }
+    }
+
+    @Name("mx.oscarvarto.PipelineStage")
+    @Label("Pipeline Stage")
+    @Category({"mx.oscarvarto", "Instrumented"})
+    @Description("One stage of one Pipeline run")
+    static class StageEvent extends Event {
+        @Label("Instrumented")
+        String instrumented = "";
+        @Label("Stage")
+        String stage = "";
+        @Label("Index")
+        int index;
+        @Label("Elements In")
+        long elementsIn;
+        @Label("Elements Out")
+        long elementsOut;
+        @Label("Duration")
+        @Timespan
+        long nanos;
+    }
+}
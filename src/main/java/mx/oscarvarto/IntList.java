@@ -0,0 +1,236 @@
+package mx.oscarvarto;
+
+import fj.Show;
+import fj.data.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+// A persistent list of unboxed ints, for numeric series that would otherwise be a
+// fj.data.List<Integer> (one Integer plus one cons cell per element).
+// Lists share their elements' arrays (see PrimitiveList): cons and snoc are amortized O(1), tail
+// and drop are views.
+// Use a Builder (or fromList) to create int lists.
+public final class IntList extends PrimitiveList<int[], IntList> {
+
+    private static final IntList EMPTY = new IntList(new int[0], 0, 0);
+
+    public static final Show<IntList> intListShow = Show.showS(IntList::toString);
+
+    private IntList(int[] values, int from, int to, Used used) {
+        super(values, from, to, used);
+    }
+
+    // values belongs to the new list
+    private IntList(int[] values, int from, int to) {
+        this(values, from, to, new Used(from, to));
+    }
+
+    @Override
+    IntList create(int[] values, int from, int to, Used used) {
+        return new IntList(values, from, to, used);
+    }
+
+    @Override
+    IntList emptyList() {
+        return EMPTY;
+    }
+
+    @Override
+    int[] newArray(int length) {
+        return new int[length];
+    }
+
+    @Override
+    int capacity(int[] values) {
+        return values.length;
+    }
+
+    @Override
+    void set(int[] values, int index, long value) {
+        values[index] = (int) value;
+    }
+
+    public static IntList empty() {
+        return EMPTY;
+    }
+
+    public static IntList list(int... values) {
+        return values.length == 0 ? EMPTY : new IntList(values.clone(), 0, values.length);
+    }
+
+    public static IntList fromList(List<Integer> ls) {
+        var builder = new Builder();
+        for (int i : ls) {
+            builder.add(i);
+        }
+        return builder.build();
+    }
+
+    public static IntList range(int fromInclusive, int toExclusive) {
+        return new IntList(IntStream.range(fromInclusive, toExclusive).toArray(), 0,
+                Math.max(0, toExclusive - fromInclusive));
+    }
+
+    public int index(int i) {
+        checkIndex(i);
+        return values[from + i];
+    }
+
+    public int head() {
+        checkNotEmpty("head");
+        return values[from];
+    }
+
+    public IntList cons(int i) {
+        return withFirst(i);
+    }
+
+    public IntList snoc(int i) {
+        return withLast(i);
+    }
+
+    public IntList map(IntUnaryOperator f) {
+        var mapped = new int[length()];
+        for (int i = 0; i < mapped.length; i++) {
+            mapped[i] = f.applyAsInt(values[from + i]);
+        }
+        return mapped.length == 0 ? EMPTY : new IntList(mapped, 0, mapped.length);
+    }
+
+    public <B> List<B> mapToObj(IntFunction<B> f) {
+        List<B> result = List.nil();
+        for (int i = to - 1; i >= from; i--) {
+            result = result.cons(f.apply(values[i]));
+        }
+        return result;
+    }
+
+    public IntList filter(IntPredicate p) {
+        var builder = new Builder(length());
+        for (int i = from; i < to; i++) {
+            if (p.test(values[i])) {
+                builder.add(values[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    public IntList bind(IntFunction<IntList> f) {
+        var builder = new Builder(length());
+        for (int i = from; i < to; i++) {
+            builder.addAll(f.apply(values[i]));
+        }
+        return builder.build();
+    }
+
+    public int foldLeft(IntBinaryOperator f, int zero) {
+        int acc = zero;
+        for (int i = from; i < to; i++) {
+            acc = f.applyAsInt(acc, values[i]);
+        }
+        return acc;
+    }
+
+    public int sum() {
+        return foldLeft(Integer::sum, 0);
+    }
+
+    public boolean exists(IntPredicate p) {
+        for (int i = from; i < to; i++) {
+            if (p.test(values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOfRange(values, from, to);
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(values, from, to);
+    }
+
+    public List<Integer> toList() {
+        return mapToObj(Integer::valueOf);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        return o instanceof IntList other
+                && Arrays.equals(values, from, to, other.values, other.from, other.to);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + Integer.hashCode(values[i]);
+        }
+        return hash;
+    }
+
+    // Same rendering as listShow(intShow), without boxing
+    @Override
+    public String toString() {
+        var sb = new StringBuilder(2 + 6 + length() * 8).append("List(");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        return sb.append(')').toString();
+    }
+
+    public static final class Builder {
+        private static final int[] NO_VALUES = new int[0];
+
+        private int[] values;
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int capacity) {
+            values = capacity == 0 ? NO_VALUES : new int[capacity];
+        }
+
+        public Builder add(int i) {
+            ensureCapacity(size + 1);
+            values[size++] = i;
+            return this;
+        }
+
+        public Builder addAll(IntList ls) {
+            ensureCapacity(size + ls.length());
+            System.arraycopy(ls.values, ls.from, values, size, ls.length());
+            size += ls.length();
+            return this;
+        }
+
+        // The built list may share the builder's array, so the builder starts over afterwards
+        public IntList build() {
+            // Trim the array when more than half of it would be wasted
+            var list = size == 0 ? EMPTY
+                    : new IntList(size < values.length / 2 ? Arrays.copyOf(values, size) : values, 0, size);
+            values = NO_VALUES;
+            size = 0;
+            return list;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, Math.max(capacity, Math.max(16, values.length * 2)));
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package mx.oscarvarto;
+
+import fj.Show;
+import fj.data.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+// A persistent list of unboxed longs, for numeric series that would otherwise be a
+// fj.data.List<Long> (one Long plus one cons cell per element).
+// Lists share their elements' arrays (see PrimitiveList): cons and snoc are amortized O(1), tail
+// and drop are views.
+// Use a Builder (or fromList) to create long lists.
+public final class LongList extends PrimitiveList<long[], LongList> {
+
+    private static final LongList EMPTY = new LongList(new long[0], 0, 0);
+
+    public static final Show<LongList> longListShow = Show.showS(LongList::toString);
+
+    private LongList(long[] values, int from, int to, Used used) {
+        super(values, from, to, used);
+    }
+
+    // values belongs to the new list
+    private LongList(long[] values, int from, int to) {
+        this(values, from, to, new Used(from, to));
+    }
+
+    @Override
+    LongList create(long[] values, int from, int to, Used used) {
+        return new LongList(values, from, to, used);
+    }
+
+    @Override
+    LongList emptyList() {
+        return EMPTY;
+    }
+
+    @Override
+    long[] newArray(int length) {
+        return new long[length];
+    }
+
+    @Override
+    int capacity(long[] values) {
+        return values.length;
+    }
+
+    @Override
+    void set(long[] values, int index, long value) {
+        values[index] = value;
+    }
+
+    public static LongList empty() {
+        return EMPTY;
+    }
+
+    public static LongList list(long... values) {
+        return values.length == 0 ? EMPTY : new LongList(values.clone(), 0, values.length);
+    }
+
+    public static LongList fromList(List<Long> ls) {
+        var builder = new Builder();
+        for (long l : ls) {
+            builder.add(l);
+        }
+        return builder.build();
+    }
+
+    public static LongList range(long fromInclusive, long toExclusive) {
+        return new LongList(LongStream.range(fromInclusive, toExclusive).toArray(), 0,
+                (int) Math.max(0, toExclusive - fromInclusive));
+    }
+
+    public long index(int i) {
+        checkIndex(i);
+        return values[from + i];
+    }
+
+    public long head() {
+        checkNotEmpty("head");
+        return values[from];
+    }
+
+    public LongList cons(long l) {
+        return withFirst(l);
+    }
+
+    public LongList snoc(long l) {
+        return withLast(l);
+    }
+
+    public LongList map(LongUnaryOperator f) {
+        var mapped = new long[length()];
+        for (int i = 0; i < mapped.length; i++) {
+            mapped[i] = f.applyAsLong(values[from + i]);
+        }
+        return mapped.length == 0 ? EMPTY : new LongList(mapped, 0, mapped.length);
+    }
+
+    public <B> List<B> mapToObj(LongFunction<B> f) {
+        List<B> result = List.nil();
+        for (int i = to - 1; i >= from; i--) {
+            result = result.cons(f.apply(values[i]));
+        }
+        return result;
+    }
+
+    public LongList filter(LongPredicate p) {
+        var builder = new Builder(length());
+        for (int i = from; i < to; i++) {
+            if (p.test(values[i])) {
+                builder.add(values[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    public LongList bind(LongFunction<LongList> f) {
+        var builder = new Builder(length());
+        for (int i = from; i < to; i++) {
+            builder.addAll(f.apply(values[i]));
+        }
+        return builder.build();
+    }
+
+    public long foldLeft(LongBinaryOperator f, long zero) {
+        long acc = zero;
+        for (int i = from; i < to; i++) {
+            acc = f.applyAsLong(acc, values[i]);
+        }
+        return acc;
+    }
+
+    public long sum() {
+        return foldLeft(Long::sum, 0L);
+    }
+
+    public boolean exists(LongPredicate p) {
+        for (int i = from; i < to; i++) {
+            if (p.test(values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOfRange(values, from, to);
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(values, from, to);
+    }
+
+    public List<Long> toList() {
+        return mapToObj(Long::valueOf);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        return o instanceof LongList other
+                && Arrays.equals(values, from, to, other.values, other.from, other.to);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + Long.hashCode(values[i]);
+        }
+        return hash;
+    }
+
+    // Same rendering as listShow(longShow), without boxing
+    @Override
+    public String toString() {
+        var sb = new StringBuilder(2 + 6 + length() * 8).append("List(");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        return sb.append(')').toString();
+    }
+
+    public static final class Builder {
+        private static final long[] NO_VALUES = new long[0];
+
+        private long[] values;
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int capacity) {
+            values = capacity == 0 ? NO_VALUES : new long[capacity];
+        }
+
+        public Builder add(long l) {
+            ensureCapacity(size + 1);
+            values[size++] = l;
+            return this;
+        }
+
+        public Builder addAll(LongList ls) {
+            ensureCapacity(size + ls.length());
+            System.arraycopy(ls.values, ls.from, values, size, ls.length());
+            size += ls.length();
+            return this;
+        }
+
+        // The built list may share the builder's array, so the builder starts over afterwards
+        public LongList build() {
+            // Trim the array when more than half of it would be wasted
+            var list = size == 0 ? EMPTY
+                    : new LongList(size < values.length / 2 ? Arrays.copyOf(values, size) : values, 0, size);
+            values = NO_VALUES;
+            size = 0;
+            return list;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, Math.max(capacity, Math.max(16, values.length * 2)));
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package mx.oscarvarto;
+
+import fj.Ord;
+import fj.Show;
+import fj.data.List;
+import fj.data.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+// An immutable set of unboxed longs, kept as a sorted array without duplicates.
+// member is a binary search; insert and delete copy the array, so build sets in bulk
+// (of, fromLongList, fromSet) rather than one element at a time.
+public final class LongSet {
+
+    private static final LongSet EMPTY = new LongSet(new long[0]);
+
+    public static final Show<LongSet> longSetShow = Show.showS(LongSet::toString);
+
+    private final long[] values;
+
+    private LongSet(long[] values) {
+        this.values = values;
+    }
+
+    public static LongSet empty() {
+        return EMPTY;
+    }
+
+    public static LongSet of(long... values) {
+        return sortedDistinct(values.clone());
+    }
+
+    public static LongSet fromLongList(LongList ls) {
+        return sortedDistinct(ls.toArray());
+    }
+
+    public static LongSet fromSet(Set<Long> ls) {
+        // fj.data.Set<Long> iterates in order, but its Ord is not necessarily the natural one
+        return sortedDistinct(LongList.fromList(ls.toList()).toArray());
+    }
+
+    private static LongSet sortedDistinct(long[] values) {
+        if (values.length == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(values);
+        int size = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return new LongSet(size == values.length ? values : Arrays.copyOf(values, size));
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public boolean member(long l) {
+        return Arrays.binarySearch(values, l) >= 0;
+    }
+
+    public LongSet insert(long l) {
+        int at = Arrays.binarySearch(values, l);
+        if (at >= 0) {
+            return this;
+        }
+        int insertion = -at - 1;
+        var copy = new long[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, insertion);
+        copy[insertion] = l;
+        System.arraycopy(values, insertion, copy, insertion + 1, values.length - insertion);
+        return new LongSet(copy);
+    }
+
+    public LongSet delete(long l) {
+        int at = Arrays.binarySearch(values, l);
+        if (at < 0) {
+            return this;
+        }
+        var copy = new long[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        System.arraycopy(values, at + 1, copy, at, values.length - at - 1);
+        return new LongSet(copy);
+    }
+
+    public LongSet filter(LongPredicate p) {
+        var kept = new LongList.Builder(values.length);
+        for (long l : values) {
+            if (p.test(l)) {
+                kept.add(l);
+            }
+        }
+        var result = kept.build();
+        return result.length() == values.length ? this : new LongSet(result.toArray());
+    }
+
+    public LongSet union(LongSet other) {
+        var merged = new long[values.length + other.values.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < values.length && j < other.values.length) {
+            long a = values[i];
+            long b = other.values[j];
+            merged[size++] = Math.min(a, b);
+            if (a <= b) {
+                i++;
+            }
+            if (b <= a) {
+                j++;
+            }
+        }
+        while (i < values.length) {
+            merged[size++] = values[i++];
+        }
+        while (j < other.values.length) {
+            merged[size++] = other.values[j++];
+        }
+        return new LongSet(Arrays.copyOf(merged, size));
+    }
+
+    // In ascending order
+    public LongList toLongList() {
+        return LongList.list(values);
+    }
+
+    public Set<Long> toSet() {
+        return Set.iterableSet(Ord.longOrd, toList());
+    }
+
+    public List<Long> toList() {
+        return toLongList().toList();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        return o instanceof LongSet other && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    // Same rendering as setShow(longShow), without boxing
+    @Override
+    public String toString() {
+        var sb = new StringBuilder(2 + 5 + values.length * 8).append("Set(");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(values[i]);
+        }
+        return sb.append(')').toString();
+    }
+}
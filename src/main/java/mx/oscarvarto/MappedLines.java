@@ -0,0 +1,350 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.Validation;
+import fj.function.Effect1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// The lines of a (possibly multi-GB) CSV or NDJSON file, read through memory mapped windows of the
+// file instead of decoding it into Strings.
+// A Line and its fields are CharSequence views over the mapped bytes, so checks that take a
+// CharSequence (Dates.readIsoLocalDate, StringUtils.digitsOnlyAsLong, ...) run on the bytes
+// directly. Bytes are seen as ISO-8859-1 chars: that is exact for ASCII, which is all that digit,
+// blank and date checks look at. toString gives the same ISO-8859-1 chars, as CharSequence
+// requires; decodeUtf8 gives the text of UTF-8 files, for the values to keep.
+// Lines end with \n or \r\n. Fields are split on a single separator byte, without quoting rules.
+// A Line is only valid inside the callback it is passed to: the same instance is reused for the
+// next line, and the window it points to may be unmapped.
+// The file can be split into byte ranges that start at line boundaries, to scan them in parallel.
+public final class MappedLines implements AutoCloseable {
+
+    // Large enough to make remapping rare, small enough to fit any address space
+    static final int DEFAULT_WINDOW = 1 << 28;
+
+    private final FileChannel channel;
+    private final long size;
+    private final byte separator;
+    private final int window;
+
+    MappedLines(Path path, char separator, int window) throws IOException {
+        if (separator > 0x7F) {
+            throw new IllegalArgumentException("The separator must be an ASCII char: " + separator);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.separator = (byte) separator;
+        this.window = window;
+    }
+
+    public static MappedLines open(Path path, char separator) throws IOException {
+        return new MappedLines(path, separator, DEFAULT_WINDOW);
+    }
+
+    // For CSV files
+    public static MappedLines open(Path path) throws IOException {
+        return open(path, ',');
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public void forEach(Effect1<Line> effect) {
+        new Split(0, size).forEach(effect);
+    }
+
+    public long count() {
+        return new Split(0, size).count();
+    }
+
+    // Adapter for Validation functions: every line goes through validate, and the result to the
+    // partitioner (failures left, successes right).
+    // The partitioner keeps the results after the callback returns, so they must not be the Line or
+    // one of its fields: decode what is kept (toString, decodeUtf8, a parsed value). A Line or Bytes
+    // result is rejected with an IllegalArgumentException.
+    public <E, T> void validate(F<Line, ? extends Validation<? extends E, ? extends T>> validate,
+                                Partitioner<E, T> partitioner) {
+        forEach(line -> {
+            Validation<? extends E, ? extends T> result = validate.f(line);
+            if ((result.isFail() ? result.fail() : result.success()) instanceof Bytes) {
+                throw new IllegalArgumentException(
+                        "A validation result must not be a Line or one of its fields, decode it first");
+            }
+            partitioner.validation(result);
+        });
+    }
+
+    // At most parts ranges, each starting at the beginning of a line, that together cover the whole
+    // file. There are fewer ranges when lines are longer than size / parts.
+    public java.util.List<Split> split(int parts) {
+        if (parts < 1) {
+            throw new IllegalArgumentException("parts must be positive: " + parts);
+        }
+        var splits = new ArrayList<Split>(parts);
+        long start = 0;
+        for (int i = 1; i <= parts && start < size; i++) {
+            long end = i == parts ? size : nextLineStart(size / parts * i);
+            if (end > start) {
+                splits.add(new Split(start, end));
+                start = end;
+            }
+        }
+        return splits;
+    }
+
+    // Applies perSplit to every range on the common ForkJoinPool. Results are in file order.
+    public <R> java.util.List<R> parallel(int parts, F<Split, R> perSplit) {
+        return split(parts).parallelStream().map(perSplit::f).toList();
+    }
+
+    // The offset of the first line that starts at or after position
+    private long nextLineStart(long position) {
+        if (position == 0) {
+            return 0;
+        }
+        var buffer = ByteBuffer.allocate(8192);
+        long offset = position - 1;
+        try {
+            while (offset < size) {
+                buffer.clear();
+                int read = channel.read(buffer, offset);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        return offset + i + 1;
+                    }
+                }
+                offset += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // The lines that start in [start, end). end is the start of a line, or the end of the file.
+    public final class Split {
+        private final long start;
+        private final long end;
+
+        private Split(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long start() {
+            return start;
+        }
+
+        public long end() {
+            return end;
+        }
+
+        public long count() {
+            long[] count = {0};
+            forEach(line -> count[0]++);
+            return count[0];
+        }
+
+        public void forEach(Effect1<Line> effect) {
+            var line = new Line(separator);
+            long position = start;
+            try {
+                while (position < end) {
+                    int length = (int) Math.min(window, end - position);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    boolean last = position + length == end;
+                    int lineStart = 0;
+                    while (lineStart < length) {
+                        int newline = indexOf(buffer, (byte) '\n', lineStart, length);
+                        if (newline < 0 && !last) {
+                            // The line goes on in the next window
+                            break;
+                        }
+                        int lineEnd = newline < 0 ? length : newline;
+                        line.reset(buffer, lineStart, lineEnd);
+                        effect.f(line);
+                        lineStart = newline < 0 ? length : newline + 1;
+                    }
+                    if (lineStart == 0) {
+                        throw new IllegalStateException("Line at offset " + position + " is longer than " + window + " bytes");
+                    }
+                    position += lineStart;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Bytes [from, to) of a buffer as a CharSequence of ISO-8859-1 chars, one per byte. For non
+    // ASCII UTF-8 text that is not the text itself: "J\u00f6rg" is 5 chars long here. Use
+    // decodeUtf8 to get it.
+    public static class Bytes implements CharSequence {
+        ByteBuffer buffer;
+        int from;
+        int to;
+
+        Bytes(ByteBuffer buffer, int from, int to) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) (buffer.get(from + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || start > end || end > to - from) {
+                throw new IndexOutOfBoundsException("[" + start + ", " + end + ") of " + length());
+            }
+            return new Bytes(buffer, from + start, from + end);
+        }
+
+        // Same as String.isBlank for ASCII (and ISO-8859-1) text
+        public boolean isBlank() {
+            for (int i = from; i < to; i++) {
+                if (!Character.isWhitespace((char) (buffer.get(i) & 0xFF))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int countDigits() {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // Not empty, and only ASCII digits
+        public boolean allDigits() {
+            return to > from && countDigits() == to - from;
+        }
+
+        public boolean contentEquals(CharSequence cs) {
+            if (cs.length() != length()) {
+                return false;
+            }
+            for (int i = 0; i < cs.length(); i++) {
+                if (charAt(i) != cs.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // The same chars as charAt
+        @Override
+        public String toString() {
+            return new String(bytes(), StandardCharsets.ISO_8859_1);
+        }
+
+        public String decodeUtf8() {
+            return new String(bytes(), StandardCharsets.UTF_8);
+        }
+
+        private byte[] bytes() {
+            var bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            return bytes;
+        }
+    }
+
+    // One line, without its line terminator. Fields are found the first time they are asked for.
+    public static final class Line extends Bytes {
+        private final byte separator;
+        // Field i is [separators[i - 1] + 1, separators[i]), with separators[-1] = from - 1 and
+        // separators[fields - 1] = to
+        private int[] separators = new int[16];
+        private int fields = -1;
+
+        private Line(byte separator) {
+            super(ByteBuffer.allocate(0), 0, 0);
+            this.separator = separator;
+        }
+
+        private void reset(ByteBuffer buffer, int from, int to) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to > from && buffer.get(to - 1) == '\r' ? to - 1 : to;
+            this.fields = -1;
+        }
+
+        public int fields() {
+            if (fields < 0) {
+                int n = 0;
+                for (int i = from; i < to; i++) {
+                    if (buffer.get(i) == separator) {
+                        n = add(n, i);
+                    }
+                }
+                fields = add(n, to);
+            }
+            return fields;
+        }
+
+        private int add(int n, int position) {
+            if (n == separators.length) {
+                separators = Arrays.copyOf(separators, n * 2);
+            }
+            separators[n] = position;
+            return n + 1;
+        }
+
+        // A view of field i, valid as long as the line is
+        public Bytes field(int i) {
+            if (i < 0 || i >= fields()) {
+                throw new IndexOutOfBoundsException("Field " + i + " of " + fields());
+            }
+            return new Bytes(buffer, i == 0 ? from : separators[i - 1] + 1, separators[i]);
+        }
+
+        // For functions on fields: field(2, Dates::parseIsoLocalDate)
+        public static <B> F<Line, B> field(int i, F<? super Bytes, B> f) {
+            return line -> f.f(line.field(i));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package mx.oscarvarto;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import fj.F;
+
+// A memoized F: results of f are kept in a bounded, thread-safe Guava cache.
+// The cache is split in segments, each with its own lock, so concurrent callers rarely contend.
+// When the cache is full, the least recently used entries (per segment) are evicted first.
+// f must be pure and must not return null. Null inputs (when A allows them) are not cached,
+// they go straight to f.
+public final class Memo<A, B> implements F<A, B> {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000L;
+
+    private final F<A, B> f;
+    private final LoadingCache<A, B> cache;
+
+    private Memo(F<A, B> f, LoadingCache<A, B> cache) {
+        this.f = f;
+        this.cache = cache;
+    }
+
+    public static <A, B> Memo<A, B> memo(F<A, B> f) {
+        return memo(f, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public static <A, B> Memo<A, B> memo(F<A, B> f, long maximumSize) {
+        return new Memo<>(f, CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(CacheLoader.from(f::f)));
+    }
+
+    // Keys are only weakly referenced, so entries go away together with their keys.
+    // Beware: weak keys are compared by identity (==), not with equals.
+    public static <A, B> Memo<A, B> weakMemo(F<A, B> f, long maximumSize) {
+        return new Memo<>(f, CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .weakKeys()
+                .recordStats()
+                .build(CacheLoader.from(f::f)));
+    }
+
+    @Override
+    public B f(A a) {
+        if (a == null) {
+            return f.f(a);
+        }
+        try {
+            return cache.getUnchecked(a);
+        } catch (UncheckedExecutionException e) {
+            // Callers see what f threw, not Guava's wrapper
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public F<A, B> unmemoized() {
+        return f;
+    }
+
+    public Stats stats() {
+        CacheStats stats = cache.stats();
+        return new Stats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.size());
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public record Stats(long hits, long misses, long evictions, long size) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.P;
+import fj.P2;
+import fj.data.Either;
+import fj.data.List;
+import fj.data.Option;
+import fj.data.Validation;
+import fj.function.Effect1;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Splits Eithers (or Validations) into their two sides in a single pass, as they arrive.
+// Either.lefts plus Either.rights, or Validation.successes plus filter(Validation::isFail), walk
+// the whole list once per side and need the whole list in memory. A Partitioner routes every
+// element to one of two sinks right away, keeps the counts, and never looks at an element twice.
+// Sinks see their elements in input order. Besides collecting into an fj List, a sink can be a
+// callback, a batch of bounded size handed downstream when full, or a list that spills to a file
+// past a threshold, so an unbounded feed is processed in constant memory.
+// Closing the Partitioner closes both sinks (flushing batches, closing spill files).
+public final class Partitioner<L, R> implements AutoCloseable {
+
+    private final Sink<? super L> lefts;
+    private final Sink<? super R> rights;
+    private long leftCount;
+    private long rightCount;
+
+    private Partitioner(Sink<? super L> lefts, Sink<? super R> rights) {
+        this.lefts = lefts;
+        this.rights = rights;
+    }
+
+    public static <L, R> Partitioner<L, R> partitioner(Sink<? super L> lefts, Sink<? super R> rights) {
+        return new Partitioner<>(lefts, rights);
+    }
+
+    // Both sides as fj Lists, in one pass: (Either.lefts(es), Either.rights(es))
+    public static <L, R> P2<List<L>, List<R>> partitionEithers(Iterable<Either<L, R>> es) {
+        var lefts = Sink.<L>list();
+        var rights = Sink.<R>list();
+        try (var partitioner = partitioner(lefts, rights)) {
+            partitioner.eithers(es);
+        }
+        return P.p(lefts.toList(), rights.toList());
+    }
+
+    // Failures and successes as fj Lists, in one pass
+    public static <E, T> P2<List<E>, List<T>> partitionValidations(Iterable<Validation<E, T>> vs) {
+        var fails = Sink.<E>list();
+        var successes = Sink.<T>list();
+        try (var partitioner = partitioner(fails, successes)) {
+            partitioner.validations(vs);
+        }
+        return P.p(fails.toList(), successes.toList());
+    }
+
+    public void either(Either<? extends L, ? extends R> e) {
+        if (e.isLeft()) {
+            leftCount++;
+            lefts.accept(e.left().value());
+        } else {
+            rightCount++;
+            rights.accept(e.right().value());
+        }
+    }
+
+    // Failures go left, successes right
+    public void validation(Validation<? extends L, ? extends R> v) {
+        if (v.isFail()) {
+            leftCount++;
+            lefts.accept(v.fail());
+        } else {
+            rightCount++;
+            rights.accept(v.success());
+        }
+    }
+
+    public Partitioner<L, R> eithers(Iterable<? extends Either<? extends L, ? extends R>> es) {
+        for (var e : es) {
+            either(e);
+        }
+        return this;
+    }
+
+    public Partitioner<L, R> validations(Iterable<? extends Validation<? extends L, ? extends R>> vs) {
+        for (var v : vs) {
+            validation(v);
+        }
+        return this;
+    }
+
+    public long leftCount() {
+        return leftCount;
+    }
+
+    public long rightCount() {
+        return rightCount;
+    }
+
+    public long count() {
+        return leftCount + rightCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            lefts.close();
+        } finally {
+            rights.close();
+        }
+    }
+
+    // Where the elements of one side go. Not thread safe, like the Partitioner itself.
+    public interface Sink<A> extends AutoCloseable {
+
+        void accept(A a);
+
+        @Override
+        default void close() {
+        }
+
+        static <A> Sink<A> callback(Effect1<A> effect) {
+            return effect::f;
+        }
+
+        // Drops everything, only the counts are kept
+        static <A> Sink<A> discard() {
+            return a -> {
+            };
+        }
+
+        static <A> ListSink<A> list() {
+            return new ListSink<>();
+        }
+
+        // At most size elements are held: full batches are handed to downstream, and so is the
+        // last (possibly shorter) one on close
+        static <A> Sink<A> batches(int size, Effect1<List<A>> downstream) {
+            return new BatchSink<>(size, downstream);
+        }
+
+        // The first threshold elements are kept in memory, the rest are written to a temporary
+        // file in directory, each one as the UTF-8 bytes of show, prefixed with their length (so
+        // show may produce any string, line breaks included)
+        static <A> SpillSink<A> spilling(int threshold, F<A, String> show, Path directory) {
+            return new SpillSink<>(threshold, show, directory);
+        }
+    }
+
+    public static final class ListSink<A> implements Sink<A> {
+        private final List.Buffer<A> buffer = new List.Buffer<>();
+
+        private ListSink() {
+        }
+
+        @Override
+        public void accept(A a) {
+            buffer.snoc(a);
+        }
+
+        public List<A> toList() {
+            return buffer.toList();
+        }
+    }
+
+    private static final class BatchSink<A> implements Sink<A> {
+        private final int size;
+        private final Effect1<List<A>> downstream;
+        private List.Buffer<A> batch = new List.Buffer<>();
+        private int length;
+
+        private BatchSink(int size, Effect1<List<A>> downstream) {
+            if (size < 1) {
+                throw new IllegalArgumentException("size must be positive: " + size);
+            }
+            this.size = size;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void accept(A a) {
+            batch.snoc(a);
+            if (++length == size) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            var full = batch.toList();
+            batch = new List.Buffer<>();
+            length = 0;
+            downstream.f(full);
+        }
+
+        @Override
+        public void close() {
+            if (length > 0) {
+                flush();
+            }
+        }
+    }
+
+    public static final class SpillSink<A> implements Sink<A> {
+        private final int threshold;
+        private final F<A, String> show;
+        private final Path directory;
+        private final List.Buffer<A> inMemory = new List.Buffer<>();
+        private int inMemoryCount;
+        private long spilled;
+        private @Nullable Path file;
+        private @Nullable DataOutputStream writer;
+        // Set once the spilled elements have been read back or deleted
+        private boolean consumed;
+
+        private SpillSink(int threshold, F<A, String> show, Path directory) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("threshold must not be negative: " + threshold);
+            }
+            this.threshold = threshold;
+            this.show = show;
+            this.directory = directory;
+        }
+
+        @Override
+        public void accept(A a) {
+            if (inMemoryCount < threshold) {
+                inMemory.snoc(a);
+                inMemoryCount++;
+                return;
+            }
+            if (consumed) {
+                throw new IllegalStateException("The spilled elements were already read back or deleted");
+            }
+            try {
+                var out = writer;
+                if (out == null) {
+                    // After a close, the sink goes on appending to the same file
+                    var spillFile = file != null ? file : Files.createTempFile(directory, "partitioner-", ".spill");
+                    out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+                    file = spillFile;
+                    writer = out;
+                }
+                var bytes = show.f(a).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                spilled++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // The first threshold elements
+        public List<A> inMemory() {
+            return inMemory.toList();
+        }
+
+        // How many elements were spilled, also after they were read back or deleted
+        public long spilled() {
+            return spilled;
+        }
+
+        // Only there once something was spilled, and until it is read back or deleted
+        public Option<Path> file() {
+            return Option.fromNull(file);
+        }
+
+        // Every element, in order, reading back the spilled ones with read. Closes the sink first.
+        // The file is deleted once read, so the spilled elements can only be read back once: after
+        // that, toList (when something was spilled) and accept throw IllegalStateException.
+        public List<A> toList(F<String, A> read) {
+            close();
+            if (consumed && spilled > 0) {
+                throw new IllegalStateException("The spilled elements were already read back or deleted");
+            }
+            var all = new List.Buffer<A>();
+            all.append(inMemory.toList());
+            var spillFile = file;
+            if (spillFile != null) {
+                try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile)))) {
+                    for (long i = 0; i < spilled; i++) {
+                        var bytes = in.readNBytes(in.readInt());
+                        all.snoc(read.f(new String(bytes, StandardCharsets.UTF_8)));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                delete();
+            }
+            return all.toList();
+        }
+
+        // Deletes the file without reading it back, for when the spilled elements are not needed
+        public void delete() {
+            close();
+            consumed = true;
+            var spillFile = file;
+            if (spillFile != null) {
+                file = null;
+                try {
+                    Files.deleteIfExists(spillFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            var out = writer;
+            if (out != null) {
+                writer = null;
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
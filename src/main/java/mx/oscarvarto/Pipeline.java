@@ -0,0 +1,396 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.F2;
+import fj.data.List;
+import fj.data.Option;
+import fj.function.Effect1;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+// A chain of element level map/filter/bind stages.
+// Composing F<List<A>, List<B>> steps with andThen (see HelloPipelineTest) builds a whole new list
+// per step. A Pipeline instead pushes every input element through all the stages in one pass, and
+// only the sink (run, foldLeft, forEach) materializes a result.
+// Pipelines are immutable: every stage method returns a new Pipeline.
+// With parallel(...), run splits large inputs into chunks that are processed on a ForkJoinPool, so
+// the stages must be pure functions (and the input must not change while it runs).
+public final class Pipeline<A, B> {
+
+    private static final Stage[] NO_STAGES = new Stage[0];
+    // Chunks per pool thread, so that threads that finish early can steal work
+    private static final int LEAVES_PER_THREAD = 4;
+
+    private final Stage[] stages;
+    private final Option<Effect1<StageStats>> listener;
+    private final Option<Parallelism> parallelism;
+
+    private Pipeline(Stage[] stages, Option<Effect1<StageStats>> listener, Option<Parallelism> parallelism) {
+        this.stages = stages;
+        this.listener = listener;
+        this.parallelism = parallelism;
+    }
+
+    public static <A> Pipeline<A, A> pipeline() {
+        return new Pipeline<>(NO_STAGES, Option.none(), Option.none());
+    }
+
+    public <C> Pipeline<A, C> map(F<B, C> f) {
+        return append(Kind.MAP, f);
+    }
+
+    public Pipeline<A, B> filter(F<B, Boolean> p) {
+        return append(Kind.FILTER, p);
+    }
+
+    public <C> Pipeline<A, C> bind(F<B, ? extends Iterable<C>> f) {
+        return append(Kind.BIND, f);
+    }
+
+    // Gives the last stage a name, used when reporting its StageStats
+    public Pipeline<A, B> named(String name) {
+        if (stages.length == 0) {
+            throw new IllegalStateException("There is no stage to name");
+        }
+        var copy = stages.clone();
+        var last = copy[copy.length - 1];
+        copy[copy.length - 1] = new Stage(last.kind(), name, last.f());
+        return new Pipeline<>(copy, listener, parallelism);
+    }
+
+    // After every run, listener receives one StageStats per stage, in stage order.
+    // Without a listener no timing is done at all.
+    public Pipeline<A, B> observe(Effect1<StageStats> listener) {
+        return new Pipeline<>(stages, Option.some(listener), parallelism);
+    }
+
+    // run, forEach and foldLeft process inputs of at least parallelism.threshold() elements in
+    // parallel, in chunks. The effect of forEach is called by the pool threads, one call at a time:
+    // in input order, or when unordered, with the results of every chunk as soon as it finishes.
+    public Pipeline<A, B> parallel(Parallelism parallelism) {
+        return new Pipeline<>(stages, listener, Option.some(parallelism));
+    }
+
+    public Pipeline<A, B> parallel() {
+        return parallel(Parallelism.parallelism());
+    }
+
+    public Pipeline<A, B> sequential() {
+        return new Pipeline<>(stages, listener, Option.none());
+    }
+
+    public int stages() {
+        return stages.length;
+    }
+
+    // Inputs below the threshold are not copied. Larger ones are copied once, unless they are
+    // random access java.util.Lists.
+    public List<B> run(Iterable<A> as) {
+        var buffer = new List.Buffer<B>();
+        forEach(as, buffer::snoc);
+        return buffer.toList();
+    }
+
+    public List<B> run(A[] as) {
+        return run(Arrays.asList(as));
+    }
+
+    public List<B> run(Stream<A> as) {
+        var buffer = new List.Buffer<B>();
+        if (parallelism.isSome()) {
+            forEachParallel(Arrays.asList(as.toArray()), sinkFor(buffer::snoc), parallelism.some().ordered());
+            return buffer.toList();
+        }
+        var execution = new Execution(sinkFor(buffer::snoc));
+        as.sequential().forEachOrdered(execution.head::accept);
+        execution.report();
+        return buffer.toList();
+    }
+
+    public void forEach(Iterable<A> as, Effect1<B> effect) {
+        forEach(as, effect, parallelism.isNone() || parallelism.some().ordered());
+    }
+
+    // Folds in input order, also when the pipeline is unordered: only the stages run in parallel
+    public <R> R foldLeft(Iterable<A> as, F2<R, B, R> f, R zero) {
+        var accumulator = new Object() {
+            R value = zero;
+        };
+        forEach(as, b -> accumulator.value = f.f(accumulator.value, b), true);
+        return accumulator.value;
+    }
+
+    // To plug a Pipeline into code that composes F<List<A>, List<B>> steps
+    public F<List<A>, List<B>> toListF() {
+        return this::run;
+    }
+
+    private <C> Pipeline<A, C> append(Kind kind, F<?, ?> f) {
+        var copy = Arrays.copyOf(stages, stages.length + 1);
+        copy[stages.length] = new Stage(kind, kind.defaultName(stages.length), f);
+        return new Pipeline<>(copy, listener, parallelism);
+    }
+
+    private void forEach(Iterable<A> as, Effect1<B> effect, boolean ordered) {
+        if (parallelism.isSome() && !belowThreshold(as)) {
+            forEachParallel(randomAccess(as), sinkFor(effect), ordered);
+            return;
+        }
+        var execution = new Execution(sinkFor(effect));
+        for (A a : as) {
+            execution.head.accept(a);
+        }
+        execution.report();
+    }
+
+    // Counts no further than the threshold, so an fj List is not walked to the end
+    private boolean belowThreshold(Iterable<?> as) {
+        int threshold = parallelism.some().threshold();
+        if (as instanceof Collection<?> collection) {
+            return collection.size() < threshold;
+        }
+        if (as instanceof List<?> list) {
+            int length = 0;
+            for (var i = list.iterator(); length < threshold && i.hasNext(); i.next()) {
+                length++;
+            }
+            return length < threshold;
+        }
+        // Other Iterables may only be iterable once: they are copied, and checked afterwards
+        return false;
+    }
+
+    private static java.util.List<?> randomAccess(Iterable<?> as) {
+        if (as instanceof java.util.List<?> list && as instanceof RandomAccess) {
+            return list;
+        }
+        var elements = as instanceof Collection<?> collection
+                ? new ArrayList<Object>(collection.size())
+                : new ArrayList<Object>();
+        as.forEach(elements::add);
+        return elements;
+    }
+
+    private void forEachParallel(java.util.List<?> as, Sink terminal, boolean ordered) {
+        var p = parallelism.some();
+        if (as.size() < p.threshold()) {
+            // A copy of an Iterable that turned out to be small
+            var execution = new Execution(terminal);
+            as.forEach(execution.head::accept);
+            execution.report();
+            return;
+        }
+        int leafSize = Math.max(1, as.size() / (p.pool().getParallelism() * LEAVES_PER_THREAD));
+        var job = new ParallelRun(as, leafSize, ordered, terminal);
+        p.pool().invoke(job.chunk(0, job.chunks.length));
+        job.total.report();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Sink sinkFor(Effect1<B> effect) {
+        return o -> effect.f((B) o);
+    }
+
+    private enum Kind {
+        MAP, FILTER, BIND;
+
+        String defaultName(int index) {
+            return name().toLowerCase() + "#" + index;
+        }
+    }
+
+    private record Stage(Kind kind, String name, F<?, ?> f) {
+    }
+
+    // threshold: inputs smaller than this run sequentially.
+    // ordered: when false, the results of every chunk are handed on (to the effect of forEach, or
+    // appended to the result of run) as soon as the chunk finishes, without waiting for the chunks
+    // before it. Results keep their order within a chunk.
+    public record Parallelism(ForkJoinPool pool, int threshold, boolean ordered) {
+        public static final int DEFAULT_THRESHOLD = 10_000;
+
+        public static Parallelism parallelism() {
+            return new Parallelism(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, true);
+        }
+
+        public Parallelism withPool(ForkJoinPool pool) {
+            return new Parallelism(pool, threshold, ordered);
+        }
+
+        public Parallelism withThreshold(int threshold) {
+            return new Parallelism(pool, threshold, ordered);
+        }
+
+        public Parallelism unordered() {
+            return new Parallelism(pool, threshold, false);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void accept(Object o);
+    }
+
+    public record StageStats(int index, String name, long elementsIn, long elementsOut, long nanos) {
+    }
+
+    // The sinks of one run, wired back to front, plus the counters of the timed variant
+    private final class Execution {
+        final Sink head;
+        final long[] in;
+        final long[] out;
+        final long[] nanos;
+
+        Execution() {
+            this(o -> {
+            });
+        }
+
+        Execution(Sink terminal) {
+            boolean timed = listener.isSome();
+            int n = timed ? stages.length : 0;
+            in = new long[n];
+            out = new long[n];
+            nanos = new long[n];
+            Sink next = terminal;
+            for (int i = stages.length - 1; i >= 0; i--) {
+                next = timed ? timedSink(i, next) : sink(stages[i], next);
+            }
+            head = next;
+        }
+
+        @SuppressWarnings({"unchecked", "nullness"})
+        private Sink sink(Stage stage, Sink next) {
+            var f = (F<Object, Object>) stage.f();
+            return switch (stage.kind()) {
+                case MAP -> o -> next.accept(f.f(o));
+                case FILTER -> o -> {
+                    if ((Boolean) f.f(o)) {
+                        next.accept(o);
+                    }
+                };
+                case BIND -> o -> {
+                    for (Object x : (Iterable<Object>) f.f(o)) {
+                        next.accept(x);
+                    }
+                };
+            };
+        }
+
+        // Only the stage's own function is timed, not the downstream stages
+        @SuppressWarnings({"unchecked", "nullness"})
+        private Sink timedSink(int i, Sink next) {
+            var stage = stages[i];
+            var f = (F<Object, Object>) stage.f();
+            return o -> {
+                in[i]++;
+                long start = System.nanoTime();
+                Object result = f.f(o);
+                nanos[i] += System.nanoTime() - start;
+                switch (stage.kind()) {
+                    case MAP -> {
+                        out[i]++;
+                        next.accept(result);
+                    }
+                    case FILTER -> {
+                        if ((Boolean) result) {
+                            out[i]++;
+                            next.accept(o);
+                        }
+                    }
+                    case BIND -> {
+                        for (Object x : (Iterable<Object>) result) {
+                            out[i]++;
+                            next.accept(x);
+                        }
+                    }
+                }
+            };
+        }
+
+        synchronized void merge(Execution other) {
+            for (int i = 0; i < in.length; i++) {
+                in[i] += other.in[i];
+                out[i] += other.out[i];
+                nanos[i] += other.nanos[i];
+            }
+        }
+
+        void report() {
+            listener.foreachDoEffect(l -> {
+                for (int i = 0; i < stages.length; i++) {
+                    l.f(new StageStats(i, stages[i].name(), in[i], out[i], nanos[i]));
+                }
+            });
+        }
+    }
+
+    // The input is split in fixed size chunks. Every chunk runs the sequential sink chain into its
+    // own buffer, which is handed to the terminal sink once the chunk finishes. Ordered runs keep
+    // the buffers of chunks that finish early until all the chunks before them are handed on.
+    private final class ParallelRun {
+        final java.util.List<?> as;
+        final int leafSize;
+        final boolean ordered;
+        final Sink terminal;
+        final @Nullable ArrayList<Object>[] chunks;
+        // The next chunk to hand on, in ordered runs
+        int next;
+        final Execution total = new Execution();
+
+        @SuppressWarnings("unchecked")
+        ParallelRun(java.util.List<?> as, int leafSize, boolean ordered, Sink terminal) {
+            this.as = as;
+            this.leafSize = leafSize;
+            this.ordered = ordered;
+            this.terminal = terminal;
+            this.chunks = (ArrayList<Object>[]) new ArrayList<?>[(as.size() + leafSize - 1) / leafSize];
+        }
+
+        RecursiveAction chunk(int fromChunk, int toChunk) {
+            return new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    if (toChunk - fromChunk > 1) {
+                        int mid = (fromChunk + toChunk) >>> 1;
+                        invokeAll(chunk(fromChunk, mid), chunk(mid, toChunk));
+                    } else {
+                        runChunk(fromChunk);
+                    }
+                }
+            };
+        }
+
+        void runChunk(int chunk) {
+            int from = chunk * leafSize;
+            int to = Math.min(as.size(), from + leafSize);
+            var results = new ArrayList<Object>(to - from);
+            var execution = new Execution(results::add);
+            for (int i = from; i < to; i++) {
+                execution.head.accept(as.get(i));
+            }
+            total.merge(execution);
+            handOn(chunk, results);
+        }
+
+        // The terminal sink is called by one thread at a time
+        synchronized void handOn(int chunk, ArrayList<Object> results) {
+            if (!ordered) {
+                results.forEach(terminal::accept);
+                return;
+            }
+            chunks[chunk] = results;
+            for (var ready = chunks[next]; ready != null; ready = next < chunks.length ? chunks[next] : null) {
+                chunks[next++] = null;
+                ready.forEach(terminal::accept);
+            }
+        }
+    }
+}
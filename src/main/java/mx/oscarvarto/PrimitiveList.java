@@ -0,0 +1,165 @@
+package mx.oscarvarto;
+
+// What IntList and LongList have in common. A is the array type (int[] or long[]), L the list type.
+// The elements of a list are [from, to) of an array that other lists may share. cons, snoc and
+// append write into the free slots right before or after a list when no other list has taken them
+// yet, and copy into an array with as much room again otherwise, so building a list one element at
+// a time costs amortized O(1) per element and leaves the lists it was built from unchanged.
+// tail, drop and take are O(1) views, unless the view would keep alive an array more than four
+// times its size: then its elements are copied.
+abstract class PrimitiveList<A, L extends PrimitiveList<A, L>> {
+
+    // Room left for growing when a list is copied, at least
+    private static final int MIN_ROOM = 8;
+
+    final A values;
+    final int from;
+    final int to;
+    private final Used used;
+
+    PrimitiveList(A values, int from, int to, Used used) {
+        this.values = values;
+        this.from = from;
+        this.to = to;
+        this.used = used;
+    }
+
+    // The part of an array that some list uses. The slots around it are free for the first list
+    // that grows into them.
+    static final class Used {
+        private int low;
+        private int high;
+
+        Used(int low, int high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        // Takes the slot right before from, if nobody has taken it
+        synchronized boolean claimBefore(int from) {
+            if (from != low || from == 0) {
+                return false;
+            }
+            low--;
+            return true;
+        }
+
+        // Takes the n slots right after to, if nobody has taken them
+        synchronized boolean claimAfter(int to, int n, int capacity) {
+            if (to != high || capacity - to < n) {
+                return false;
+            }
+            high += n;
+            return true;
+        }
+    }
+
+    abstract L create(A values, int from, int to, Used used);
+
+    abstract L emptyList();
+
+    abstract A newArray(int length);
+
+    abstract int capacity(A values);
+
+    // Elements are passed as longs, so that ints need no boxing either
+    abstract void set(A values, int index, long value);
+
+    @SuppressWarnings("unchecked")
+    private L self() {
+        return (L) this;
+    }
+
+    public final int length() {
+        return to - from;
+    }
+
+    public final boolean isEmpty() {
+        return from == to;
+    }
+
+    public final boolean isNotEmpty() {
+        return from != to;
+    }
+
+    final void checkIndex(int i) {
+        if (i < 0 || i >= length()) {
+            throw new IndexOutOfBoundsException("Index %d out of %d".formatted(i, length()));
+        }
+    }
+
+    final void checkNotEmpty(String operation) {
+        if (isEmpty()) {
+            throw new IllegalStateException(operation + " on empty list");
+        }
+    }
+
+    public final L tail() {
+        checkNotEmpty("tail");
+        return view(from + 1, to);
+    }
+
+    public final L drop(int n) {
+        return n >= length() ? emptyList() : view(from + Math.max(0, n), to);
+    }
+
+    public final L take(int n) {
+        return n >= length() ? self() : view(from, from + Math.max(0, n));
+    }
+
+    public final L append(L other) {
+        if (isEmpty()) {
+            return other;
+        }
+        if (other.isEmpty()) {
+            return self();
+        }
+        int n = length();
+        int m = other.length();
+        if (used.claimAfter(to, m, capacity(values))) {
+            System.arraycopy(other.values, other.from, values, to, m);
+            return create(values, from, to + m, used);
+        }
+        var copy = newArray(n + m + Math.max(n + m, MIN_ROOM));
+        System.arraycopy(values, from, copy, 0, n);
+        System.arraycopy(other.values, other.from, copy, n, m);
+        return create(copy, 0, n + m, new Used(0, n + m));
+    }
+
+    final L withFirst(long value) {
+        if (used.claimBefore(from)) {
+            set(values, from - 1, value);
+            return create(values, from - 1, to, used);
+        }
+        int n = length();
+        int room = Math.max(n, MIN_ROOM);
+        var copy = newArray(room + n);
+        System.arraycopy(values, from, copy, room, n);
+        set(copy, room - 1, value);
+        return create(copy, room - 1, room + n, new Used(room - 1, room + n));
+    }
+
+    final L withLast(long value) {
+        if (used.claimAfter(to, 1, capacity(values))) {
+            set(values, to, value);
+            return create(values, from, to + 1, used);
+        }
+        int n = length();
+        var copy = newArray(n + Math.max(n, MIN_ROOM));
+        System.arraycopy(values, from, copy, 0, n);
+        set(copy, n, value);
+        return create(copy, 0, n + 1, new Used(0, n + 1));
+    }
+
+    private L view(int start, int end) {
+        if (start == end) {
+            return emptyList();
+        }
+        if (end - start < capacity(values) / 4) {
+            var copy = newArray(end - start);
+            System.arraycopy(values, start, copy, 0, end - start);
+            return create(copy, 0, end - start, new Used(0, end - start));
+        }
+        return create(values, start, end, used);
+    }
+}
@@ -0,0 +1,247 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// A Python function (run by GraalPy) as an fj F, so that Python transforms can be used in
+// Pipelines and composed with andThen like any other F.
+// A polyglot Context is single threaded and expensive to start, so every PythonF keeps a pool of
+// contexts that have already evaluated the Python source. All the contexts share one Engine, which
+// keeps the parsed and compiled code: only the first context pays for it.
+// Inputs cross into Python without copying when possible: long[], int[], double[] and
+// java.util.List inputs are passed as read only polyglot proxies, so Python cannot change them. Results are converted back by
+// the given F<Value, B> while the context is still held, since a Value must not outlive it.
+// batch calls the function on a whole list in a single crossing of the Java/Python boundary.
+public final class PythonF<A, B> implements F<A, B>, AutoCloseable {
+
+    private static final String BATCH_FUNCTION = "_fj_batch";
+    private static final Source BATCH_SOURCE = Source.create("python",
+            "def " + BATCH_FUNCTION + "(f, xs):\n    return [f(x) for x in xs]\n");
+
+    private static volatile @Nullable Engine sharedEngine;
+
+    private final Engine engine;
+    private final boolean ownsEngine;
+    private final F<Value, B> fromPython;
+    private final BlockingQueue<Guest> pool;
+    private final java.util.List<Guest> guests;
+
+    // One pooled context, with the function (and the batch helper) already looked up
+    private record Guest(Context context, Value function, Value batch) {
+    }
+
+    private PythonF(Engine engine, boolean ownsEngine, Source source, String function,
+                    F<Value, B> fromPython, int poolSize) {
+        this.engine = engine;
+        this.ownsEngine = ownsEngine;
+        this.fromPython = fromPython;
+        this.guests = new ArrayList<>(Math.max(poolSize, 0));
+        // If a context cannot be built, the ones already built (and an owned engine) are closed
+        try {
+            if (poolSize < 1) {
+                throw new IllegalArgumentException("poolSize must be positive: " + poolSize);
+            }
+            this.pool = new ArrayBlockingQueue<>(poolSize);
+            for (int i = 0; i < poolSize; i++) {
+                var guest = warmUp(engine, source, function);
+                guests.add(guest);
+                pool.add(guest);
+            }
+        } catch (RuntimeException | Error e) {
+            close(guests, engine, ownsEngine);
+            throw e;
+        }
+    }
+
+    // One Engine for the whole JVM, closed when it exits
+    public static Engine sharedEngine() {
+        var engine = sharedEngine;
+        if (engine == null) {
+            synchronized (PythonF.class) {
+                engine = sharedEngine;
+                if (engine == null) {
+                    engine = Engine.newBuilder()
+                            .option("engine.WarnInterpreterOnly", "false")
+                            .build();
+                    sharedEngine = engine;
+                    Runtime.getRuntime().addShutdownHook(new Thread(engine::close));
+                }
+            }
+        }
+        return engine;
+    }
+
+    // function is the name of a function defined (at the top level) by code
+    public static <A, B> PythonF<A, B> pythonF(String code, String function, F<Value, B> fromPython, int poolSize) {
+        return new PythonF<>(sharedEngine(), false, Source.create("python", code), function, fromPython, poolSize);
+    }
+
+    public static <A, B> PythonF<A, B> pythonF(String code, String function, F<Value, B> fromPython) {
+        return pythonF(code, function, fromPython, Runtime.getRuntime().availableProcessors());
+    }
+
+    // With an Engine of its own, closed together with this PythonF
+    public static <A, B> PythonF<A, B> isolated(String code, String function, F<Value, B> fromPython, int poolSize) {
+        var engine = Engine.newBuilder().option("engine.WarnInterpreterOnly", "false").build();
+        return new PythonF<>(engine, true, Source.create("python", code), function, fromPython, poolSize);
+    }
+
+    private static Guest warmUp(Engine engine, Source source, String function) {
+        var context = Context.newBuilder("python").engine(engine).build();
+        try {
+            context.eval(source);
+            context.eval(BATCH_SOURCE);
+            var bindings = context.getBindings("python");
+            var f = bindings.getMember(function);
+            if (f == null || !f.canExecute()) {
+                throw new IllegalArgumentException("No Python function named " + function);
+            }
+            return new Guest(context, f, bindings.getMember(BATCH_FUNCTION));
+        } catch (RuntimeException | Error e) {
+            context.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public B f(A a) {
+        var guest = acquire();
+        try {
+            return fromPython.f(guest.function().execute(toPython(a)));
+        } finally {
+            pool.add(guest);
+        }
+    }
+
+    // Same as as.map(this), with one call into Python for the whole list
+    public List<B> batch(List<A> as) {
+        if (as.isEmpty()) {
+            return List.nil();
+        }
+        var inputs = new Object[as.length()];
+        int i = 0;
+        for (A a : as) {
+            inputs[i++] = toPython(a);
+        }
+        var guest = acquire();
+        try {
+            var results = guest.batch().execute(guest.function(), ProxyArray.fromArray(inputs));
+            var buffer = new List.Buffer<B>();
+            for (long j = 0, size = results.getArraySize(); j < size; j++) {
+                buffer.snoc(fromPython.f(results.getArrayElement(j)));
+            }
+            return buffer.toList();
+        } finally {
+            pool.add(guest);
+        }
+    }
+
+    public F<List<A>, List<B>> batchF() {
+        return this::batch;
+    }
+
+    private Guest acquire() {
+        try {
+            return pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a Python context", e);
+        }
+    }
+
+    // Arrays and lists are wrapped, not copied. Anything else goes as it is (strings, boxed numbers,
+    // proxies, or host objects when the context allows host access).
+    static Object toPython(Object a) {
+        if (a instanceof long[] longs) {
+            return longArray(longs);
+        }
+        if (a instanceof int[] ints) {
+            return intArray(ints);
+        }
+        if (a instanceof double[] doubles) {
+            return doubleArray(doubles);
+        }
+        if (a instanceof java.util.List<?> list) {
+            return listArray(list);
+        }
+        return a;
+    }
+
+    public static ProxyArray longArray(long[] values) {
+        return new ReadOnlyArray(values.length) {
+            @Override
+            public Object get(long index) {
+                return values[Math.toIntExact(index)];
+            }
+        };
+    }
+
+    public static ProxyArray intArray(int[] values) {
+        return new ReadOnlyArray(values.length) {
+            @Override
+            public Object get(long index) {
+                return values[Math.toIntExact(index)];
+            }
+        };
+    }
+
+    public static ProxyArray doubleArray(double[] values) {
+        return new ReadOnlyArray(values.length) {
+            @Override
+            public Object get(long index) {
+                return values[Math.toIntExact(index)];
+            }
+        };
+    }
+
+    public static ProxyArray listArray(java.util.List<?> values) {
+        return new ReadOnlyArray(values.size()) {
+            @Override
+            public Object get(long index) {
+                return values.get(Math.toIntExact(index));
+            }
+        };
+    }
+
+    private abstract static class ReadOnlyArray implements ProxyArray {
+        private final int size;
+
+        ReadOnlyArray(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void set(long index, Value value) {
+            throw new UnsupportedOperationException("Read only array");
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+    }
+
+    @Override
+    public void close() {
+        close(guests, engine, ownsEngine);
+    }
+
+    private static void close(java.util.List<Guest> guests, Engine engine, boolean ownsEngine) {
+        for (var guest : guests) {
+            guest.context().close();
+        }
+        if (ownsEngine) {
+            engine.close();
+        }
+    }
+}
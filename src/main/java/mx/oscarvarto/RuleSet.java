@@ -0,0 +1,196 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.List;
+import fj.data.NonEmptyList;
+import fj.data.Validation;
+
+import java.util.Arrays;
+
+// Validation rules declared once and applied to many records.
+// A rule is identified by its index in the RuleSet (its rule id), and the failures of a record are
+// reported as a bit mask of rule ids. Checking a valid record allocates nothing: no Validation,
+// no NonEmptyList and no error message. Messages are only looked up when somebody asks for them.
+public final class RuleSet<T> {
+
+    public static final int VALID = -1;
+    public static final long NO_FAILURES = 0L;
+    public static final int MAX_RULES = Long.SIZE;
+
+    public enum Mode {
+        // Stop at the first failing rule
+        FAIL_FAST,
+        // Check every rule and report all the failures
+        ACCUMULATE
+    }
+
+    private final F<T, Boolean>[] checks;
+    private final String[] messages;
+
+    private RuleSet(F<T, Boolean>[] checks, String[] messages) {
+        this.checks = checks;
+        this.messages = messages;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> RuleSet<T> ruleSet() {
+        return new RuleSet<>((F<T, Boolean>[]) new F<?, ?>[0], new String[0]);
+    }
+
+    // check must hold for a valid record, otherwise the rule fails with message
+    public RuleSet<T> rule(F<T, Boolean> check, String message) {
+        if (checks.length == MAX_RULES) {
+            throw new IllegalStateException("A RuleSet cannot have more than %d rules".formatted(MAX_RULES));
+        }
+        var newChecks = Arrays.copyOf(checks, checks.length + 1);
+        newChecks[checks.length] = check;
+        var newMessages = Arrays.copyOf(messages, messages.length + 1);
+        newMessages[messages.length] = message;
+        return new RuleSet<>(newChecks, newMessages);
+    }
+
+    public int size() {
+        return checks.length;
+    }
+
+    public String message(int ruleId) {
+        return messages[ruleId];
+    }
+
+    // The id of the first rule that t breaks, or VALID
+    public int firstFailure(T t) {
+        for (int i = 0; i < checks.length; i++) {
+            if (!checks[i].f(t)) {
+                return i;
+            }
+        }
+        return VALID;
+    }
+
+    // The ids of all the rules that t breaks, as a bit mask. NO_FAILURES when t is valid.
+    public long failures(T t) {
+        long mask = NO_FAILURES;
+        for (int i = 0; i < checks.length; i++) {
+            if (!checks[i].f(t)) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    public long failures(T t, Mode mode) {
+        if (mode == Mode.ACCUMULATE) {
+            return failures(t);
+        }
+        int first = firstFailure(t);
+        return first == VALID ? NO_FAILURES : 1L << first;
+    }
+
+    // Same shape as the Validation built with accumulate(nonEmptyListSemigroup(), ...)
+    public Validation<NonEmptyList<String>, T> validate(T t, Mode mode) {
+        long mask = failures(t, mode);
+        return mask == NO_FAILURES
+                ? Validation.success(t)
+                : Validation.fail(messages(mask));
+    }
+
+    public Report validateAll(Iterable<T> ts, Mode mode) {
+        var report = new Report(messages);
+        for (T t : ts) {
+            report.add(failures(t, mode));
+        }
+        return report;
+    }
+
+    public Report validateAll(T[] ts, Mode mode) {
+        var report = new Report(messages);
+        for (T t : ts) {
+            report.add(failures(t, mode));
+        }
+        return report;
+    }
+
+    public static List<Integer> ruleIds(long mask) {
+        var ids = new List.Buffer<Integer>();
+        for (long m = mask; m != 0; m &= m - 1) {
+            ids.snoc(Long.numberOfTrailingZeros(m));
+        }
+        return ids.toList();
+    }
+
+    // mask must not be NO_FAILURES
+    private NonEmptyList<String> messages(long mask) {
+        var ids = ruleIds(mask);
+        return NonEmptyList.nel(messages[ids.head()], ids.tail().map(id -> messages[id]));
+    }
+
+    // The outcome of validateAll. Only the failed records are stored: their index in the input
+    // and the mask of the rules they broke, in input order.
+    public static final class Report {
+        private final String[] messages;
+        private int records;
+        private int failed;
+        private int[] failedRecords = new int[16];
+        private long[] failedRules = new long[16];
+
+        private Report(String[] messages) {
+            this.messages = messages;
+        }
+
+        private void add(long mask) {
+            if (mask != NO_FAILURES) {
+                if (failed == failedRecords.length) {
+                    failedRecords = Arrays.copyOf(failedRecords, failed * 2);
+                    failedRules = Arrays.copyOf(failedRules, failed * 2);
+                }
+                failedRecords[failed] = records;
+                failedRules[failed] = mask;
+                failed++;
+            }
+            records++;
+        }
+
+        public int records() {
+            return records;
+        }
+
+        public int validCount() {
+            return records - failed;
+        }
+
+        public int failedCount() {
+            return failed;
+        }
+
+        public boolean allValid() {
+            return failed == 0;
+        }
+
+        // i goes from 0 to failedCount() - 1
+        public int failedRecord(int i) {
+            checkFailure(i);
+            return failedRecords[i];
+        }
+
+        public long failedRules(int i) {
+            checkFailure(i);
+            return failedRules[i];
+        }
+
+        public List<String> messages(int i) {
+            return ruleIds(failedRules(i)).map(id -> messages[id]);
+        }
+
+        // The rules broken by the record at index record of the input, NO_FAILURES if it is valid
+        public long failuresOf(int record) {
+            int i = Arrays.binarySearch(failedRecords, 0, failed, record);
+            return i < 0 ? NO_FAILURES : failedRules[i];
+        }
+
+        private void checkFailure(int i) {
+            if (i < 0 || i >= failed) {
+                throw new IndexOutOfBoundsException("Failure %d out of %d".formatted(i, failed));
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package mx.oscarvarto;
+
+// One char at a time. Used when the Vector API is not available, and for short strings.
+final class ScalarStringKernels implements StringKernels {
+
+    static final ScalarStringKernels INSTANCE = new ScalarStringKernels();
+
+    private ScalarStringKernels() {
+    }
+
+    @Override
+    public boolean isBlank(String s) {
+        return s.isBlank();
+    }
+
+    @Override
+    public int countDigits(String s) {
+        int count = 0;
+        for (int i = 0, length = s.length(); i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equalsIgnoreCase(String a, String b) {
+        return a.equalsIgnoreCase(b);
+    }
+}
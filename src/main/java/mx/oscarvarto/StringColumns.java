@@ -0,0 +1,98 @@
+package mx.oscarvarto;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.function.Supplier;
+
+// Bulk versions of the string predicates in StringUtils (isNotNullOrBlank, getDigitsOnly,
+// stringIgnoreCaseEq) for whole columns of strings.
+// When the jdk.incubator.vector module is present (run with --add-modules jdk.incubator.vector)
+// long strings are checked with SIMD instructions; otherwise, or with
+// -Dmx.oscarvarto.vector=false, plain scalar code is used. Results are the same either way.
+public final class StringColumns {
+
+    private static final Supplier<StringKernels> KERNELS = kernels();
+    private static final boolean VECTORIZED = !(KERNELS.get() instanceof ScalarStringKernels);
+
+    private StringColumns() {
+    }
+
+    private static Supplier<StringKernels> kernels() {
+        boolean enabled = Boolean.parseBoolean(System.getProperty("mx.oscarvarto.vector", "true"));
+        if (enabled && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Through reflection, so that nothing here links against the incubator module
+                var vectorKernels = Class.forName("mx.oscarvarto.VectorStringKernels")
+                        .asSubclass(StringKernels.class)
+                        .getDeclaredConstructor();
+                vectorKernels.newInstance();
+                // Vector kernels keep scratch buffers, so every thread gets one instance of its own
+                var perThread = ThreadLocal.<StringKernels>withInitial(() -> {
+                    try {
+                        return vectorKernels.newInstance();
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                return perThread::get;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to the scalar kernels
+            }
+        }
+        return () -> ScalarStringKernels.INSTANCE;
+    }
+
+    public static boolean vectorized() {
+        return VECTORIZED;
+    }
+
+    // result[i] holds when column[i] is null or blank (the negation of isNotNullOrBlank)
+    public static boolean[] nullOrBlank(@Nullable String[] column) {
+        var kernels = KERNELS.get();
+        var result = new boolean[column.length];
+        for (int i = 0; i < column.length; i++) {
+            String s = column[i];
+            result[i] = s == null || kernels.isBlank(s);
+        }
+        return result;
+    }
+
+    // The number of ASCII digits in each string, 0 for nulls
+    public static int[] digitCounts(@Nullable String[] column) {
+        var kernels = KERNELS.get();
+        var result = new int[column.length];
+        for (int i = 0; i < column.length; i++) {
+            String s = column[i];
+            result[i] = s == null ? 0 : kernels.countDigits(s);
+        }
+        return result;
+    }
+
+    // result[i] holds when column[i] is not empty and only has ASCII digits, that is, when
+    // digitsOnlyOrNull(column[i]) would return column[i] itself
+    public static boolean[] allDigits(@Nullable String[] column) {
+        var kernels = KERNELS.get();
+        var result = new boolean[column.length];
+        for (int i = 0; i < column.length; i++) {
+            String s = column[i];
+            result[i] = s != null && !s.isEmpty() && kernels.countDigits(s) == s.length();
+        }
+        return result;
+    }
+
+    // Element by element stringIgnoreCaseEq. A null is only equal to another null.
+    public static boolean[] equalsIgnoreCase(@Nullable String[] left, @Nullable String[] right) {
+        if (left.length != right.length) {
+            throw new IllegalArgumentException(
+                    "Columns have different lengths: %d and %d".formatted(left.length, right.length));
+        }
+        var kernels = KERNELS.get();
+        var result = new boolean[left.length];
+        for (int i = 0; i < left.length; i++) {
+            String a = left[i];
+            String b = right[i];
+            result[i] = a == null || b == null ? a == b : kernels.equalsIgnoreCase(a, b);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,15 @@
+package mx.oscarvarto;
+
+// The per string checks behind StringColumns. A StringKernels may keep scratch buffers, so an
+// instance must not be shared between threads.
+interface StringKernels {
+
+    // Same as String.isBlank
+    boolean isBlank(String s);
+
+    // The number of ASCII digits ('0' to '9') in s
+    int countDigits(String s);
+
+    // Same as String.equalsIgnoreCase
+    boolean equalsIgnoreCase(String a, String b);
+}
@@ -1,6 +1,8 @@
 package mx.oscarvarto;
 
 import fj.Equal;
+import fj.F;
+import fj.Hash;
 import fj.Ord;
 import fj.Ordering;
 import fj.Show;
@@ -8,21 +10,20 @@ import fj.data.List;
 import fj.data.Option;
 import fj.data.Set;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.nullness.qual.PolyNull;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
 import static fj.Equal.*;
 import static fj.Ord.ordDef;
-import static fj.Show.listShow;
 import static fj.Show.longShow;
 import static fj.function.Booleans.not;
 import static fj.function.Strings.isNotNullOrBlank;
-import static mx.oscarvarto.CollectionUtils.fromNullableCollection;
 import static mx.oscarvarto.CollectionUtils.optionsExistAndEqual;
-import static org.checkerframework.checker.nullness.util.NullnessUtil.castNonNull;
 
 public class StringUtils {
 
@@ -31,43 +32,316 @@ public class StringUtils {
             optionEqual(stringIgnoreCaseEq);
     public static final Ord<String> caseInsensitiveStringOrd =
             ordDef((a1, a2) -> Ordering.fromInt(a1.compareToIgnoreCase(a2)));
+    // Consistent with stringIgnoreCaseEq, for hash based collections (HashTrieMap, HashTrieSet)
+    public static final Hash<String> caseInsensitiveStringHash = Hash.hash(IgnoreCaseStringSet::foldedHash);
+    public static final long NO_DIGITS = -1L;
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final String ELLIPSIS = "...";
+    // Elements left out are counted up to this many, so that unbounded Iterables can be rendered
+    static final long MAX_COUNTED = 1_000_000L;
+    // Rendering reuses one StringBuilder per thread. Buffers that grew beyond this are not kept.
+    private static final int MAX_RETAINED_BUFFER = 1 << 16;
+    private static final ThreadLocal<@Nullable StringBuilder> buffers = new ThreadLocal<>();
     private StringUtils() {
     }
 
-    @SuppressWarnings("nullness")
     public static @NonNull String pformat(@NonNull String s, @NonNull String @NonNull [] args) {
         if (args.length == 0) {
             return s;
         }
-        String current = args[0];
-        return pformat(
-                s.replaceFirst("\\{}", current),
-                Arrays.copyOfRange(castNonNull(args), 1, args.length)
-        );
+        return Template.compile(s).render(args);
     }
 
     public static String format(@NonNull String s, @NonNull String... args) {
         return pformat(s, args);
     }
 
+    // The lazy* versions render when toString is called, not when they are created. Passed as the
+    // {} arguments of a log call, nothing is rendered unless the message is actually logged:
+    //   log.debug("Filtered: {}", lazyPretty(ts));
+    // They render again on every toString, so ts must not change before the message is logged.
+    public static Deferred lazyFormat(@NonNull String s, @Nullable Object... args) {
+        return new Deferred(out -> {
+            var strings = new String[args.length];
+            for (int i = 0; i < args.length; i++) {
+                strings[i] = String.valueOf(args[i]);
+            }
+            Template.compile(s).renderTo(out, strings);
+        });
+    }
+
     public static <T> String prettyPrint(@PolyNull Collection<@PolyNull T> ts) {
-        return fromNullableCollection(ts)
-                .map(Object::toString)
-                .collect(Collectors.joining(", ", "[", "]"));
+        return prettyPrint(ts, UNLIMITED, UNLIMITED);
+    }
+
+    // At most maxElements elements and maxChars characters of them are rendered, followed by
+    // "... and N more" when some were left out: "[a, b, ... and 9,812 more]".
+    // Null elements are neither shown nor counted.
+    public static <T> String prettyPrint(@PolyNull Collection<@PolyNull T> ts, int maxElements, int maxChars) {
+        return renderToString(out -> prettyPrint(out, ts, maxElements, maxChars));
+    }
+
+    public static <T> Deferred lazyPretty(@PolyNull Collection<@PolyNull T> ts) {
+        return lazyPretty(ts, UNLIMITED, UNLIMITED);
+    }
+
+    public static <T> Deferred lazyPretty(@PolyNull Collection<@PolyNull T> ts, int maxElements, int maxChars) {
+        return new Deferred(out -> prettyPrint(out, ts, maxElements, maxChars));
     }
 
+    // Streams the elements straight into out. Null elements (and a null collection) are skipped.
+    public static <T> void prettyPrint(Appendable out, @PolyNull Iterable<@PolyNull T> ts,
+                                       int maxElements, int maxChars) throws IOException {
+        if (ts == null) {
+            out.append("[]");
+            return;
+        }
+        render(out, ts, true, t -> String.valueOf(t), "[", ", ", "]", maxElements, maxChars);
+    }
+
+    // Same output as listShow(st), without copying ts into a fj.data.List first
     public static <T> String pprint(Iterable<T> ts, Show<T> st) {
-        return listShow(st).showS(List.iterableList(ts));
+        return pprint(ts, st, UNLIMITED, UNLIMITED);
+    }
+
+    public static <T> String pprint(Iterable<T> ts, Show<T> st, int maxElements, int maxChars) {
+        return renderToString(out -> pprint(out, ts, st, maxElements, maxChars));
+    }
+
+    public static <T> Deferred lazyPprint(Iterable<T> ts, Show<T> st) {
+        return lazyPprint(ts, st, UNLIMITED, UNLIMITED);
+    }
+
+    public static <T> Deferred lazyPprint(Iterable<T> ts, Show<T> st, int maxElements, int maxChars) {
+        return new Deferred(out -> pprint(out, ts, st, maxElements, maxChars));
+    }
+
+    public static <T> void pprint(Appendable out, Iterable<T> ts, Show<T> st,
+                                  int maxElements, int maxChars) throws IOException {
+        render(out, ts, false, st::showS, "List(", ",", ")", maxElements, maxChars);
     }
 
     public static String pprint(Iterable<Long> ls) {
         return pprint(ls, longShow);
     }
 
-    public static Option<String> getDigitsOnly(String input) {
-        return Option.fromString(input)
-                .map(s -> s.replaceAll("\\D", ""))
-                .filter(not(String::isEmpty));
+    // Same output as pprint(Iterable<Long>), but without boxing the elements
+    public static String pprint(LongList ls) {
+        return LongList.longListShow.showS(ls);
+    }
+
+    public static String pprint(IntList is) {
+        return IntList.intListShow.showS(is);
+    }
+
+    public static String pprint(LongSet ls) {
+        return LongSet.longSetShow.showS(ls);
+    }
+
+    @FunctionalInterface
+    private interface Renderer {
+        void render(StringBuilder out) throws IOException;
+    }
+
+    // Renders into the buffer of the thread. A renderer that renders something else while it runs
+    // (a Show that calls pprint) finds the buffer taken, and gets a new one.
+    private static String renderToString(Renderer renderer) {
+        var sb = buffers.get();
+        if (sb == null) {
+            sb = new StringBuilder();
+        } else {
+            buffers.set(null);
+        }
+        try {
+            renderer.render(sb);
+            return sb.toString();
+        } catch (IOException e) {
+            // A StringBuilder does not throw IOException
+            throw new UncheckedIOException(e);
+        } finally {
+            if (sb.capacity() <= MAX_RETAINED_BUFFER) {
+                sb.setLength(0);
+                buffers.set(sb);
+            }
+        }
+    }
+
+    // See lazyFormat
+    public static final class Deferred {
+        private final Renderer renderer;
+
+        private Deferred(Renderer renderer) {
+            this.renderer = renderer;
+        }
+
+        @Override
+        public String toString() {
+            return renderToString(renderer);
+        }
+    }
+
+    // maxChars counts the characters of the elements and separators. An element that does not
+    // fit is cut, and ends with "...".
+    // The elements left out are counted by walking past them (nothing is copied), up to
+    // MAX_COUNTED: "... and 1,000,000+ more". A Collection without nulls to skip gives its size.
+    private static <T> void render(Appendable out, Iterable<T> elements, boolean skipNulls, F<T, String> show,
+                                   String open, String separator, String close,
+                                   int maxElements, int maxChars) throws IOException {
+        out.append(open);
+        var ts = elements.iterator();
+        long walked = 0;
+        int shown = 0;
+        int chars = 0;
+        while (ts.hasNext() && shown < maxElements && chars < maxChars) {
+            T t = ts.next();
+            walked++;
+            if (skipNulls && t == null) {
+                continue;
+            }
+            String s = show.f(t);
+            if (shown > 0) {
+                out.append(separator);
+                chars += separator.length();
+            }
+            int room = Math.max(0, maxChars - chars);
+            if (s.length() > room) {
+                out.append(s, 0, room).append(ELLIPSIS);
+                chars = maxChars;
+            } else {
+                out.append(s);
+                chars += s.length();
+            }
+            shown++;
+        }
+        long more = 0;
+        boolean capped = false;
+        if (!skipNulls && elements instanceof Collection<?> c) {
+            more = c.size() - walked;
+        } else {
+            while (ts.hasNext() && more < MAX_COUNTED) {
+                if (ts.next() != null || !skipNulls) {
+                    more++;
+                }
+            }
+            capped = ts.hasNext();
+        }
+        if (more > 0) {
+            if (shown > 0) {
+                out.append(separator);
+            }
+            out.append(String.format(Locale.ROOT, "%s and %,d%s more", ELLIPSIS, more, capped ? "+" : ""));
+        }
+        out.append(close);
+    }
+
+    public static Option<String> getDigitsOnly(@Nullable String input) {
+        String digits = digitsOnlyOrNull(input);
+        return digits == null ? Option.none() : Option.some(digits);
+    }
+
+    // Same as getDigitsOnly, but without the Option: null when the input is null or has no digits.
+    // When the input is already all digits it is returned as is, without copying.
+    public static @Nullable String digitsOnlyOrNull(@Nullable String input) {
+        if (input == null) {
+            return null;
+        }
+        int length = input.length();
+        int firstNonDigit = 0;
+        while (firstNonDigit < length && isAsciiDigit(input.charAt(firstNonDigit))) {
+            firstNonDigit++;
+        }
+        if (firstNonDigit == length) {
+            return length == 0 ? null : input;
+        }
+        // There is at least one non digit, so the result is shorter than the input
+        char[] digits = new char[length - 1];
+        input.getChars(0, firstNonDigit, digits, 0);
+        int count = firstNonDigit + copyDigits(input, firstNonDigit + 1, length, digits, firstNonDigit);
+        return count == 0 ? null : new String(digits, 0, count);
+    }
+
+    // Writes the digits of input at the beginning of dest and returns how many were written.
+    // Throws ArrayIndexOutOfBoundsException if dest is too small; input.length() is always enough.
+    public static int digitsOnly(CharSequence input, char[] dest) {
+        return copyDigits(input, 0, input.length(), dest, 0);
+    }
+
+    // Appends the digits of input to sb and returns how many were appended
+    public static int appendDigitsOnly(CharSequence input, StringBuilder sb) {
+        int count = 0;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            if (isAsciiDigit(c)) {
+                sb.append(c);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // The digits of input read as a decimal number, or NO_DIGITS when the input is null, has no
+    // digits, or the number does not fit in a long. Leading zeros are lost.
+    public static long digitsOnlyAsLong(@Nullable CharSequence input) {
+        if (input == null) {
+            return NO_DIGITS;
+        }
+        long value = 0;
+        boolean anyDigit = false;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            char c = input.charAt(i);
+            if (isAsciiDigit(c)) {
+                int digit = c - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    return NO_DIGITS;
+                }
+                value = value * 10 + digit;
+                anyDigit = true;
+            }
+        }
+        return anyDigit ? value : NO_DIGITS;
+    }
+
+    // Bulk versions of digitsOnlyOrNull/digitsOnlyAsLong for whole columns. Absent results are null elements instead
+    // of Option.none(), so no Option is allocated per element.
+    public static @Nullable String[] digitsOnlyColumn(@Nullable String[] column) {
+        var result = new @Nullable String[column.length];
+        for (int i = 0; i < column.length; i++) {
+            result[i] = digitsOnlyOrNull(column[i]);
+        }
+        return result;
+    }
+
+    public static @Nullable String[] digitsOnlyColumn(List<String> column) {
+        var result = new @Nullable String[column.length()];
+        int i = 0;
+        for (String s : column) {
+            result[i++] = digitsOnlyOrNull(s);
+        }
+        return result;
+    }
+
+    public static long[] digitsOnlyAsLongColumn(@Nullable String[] column) {
+        var result = new long[column.length];
+        for (int i = 0; i < column.length; i++) {
+            result[i] = digitsOnlyAsLong(column[i]);
+        }
+        return result;
+    }
+
+    private static int copyDigits(CharSequence input, int from, int to, char[] dest, int destFrom) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            char c = input.charAt(i);
+            if (isAsciiDigit(c)) {
+                dest[destFrom + count++] = c;
+            }
+        }
+        return count;
+    }
+
+    // Same characters as the regex \d (without UNICODE_CHARACTER_CLASS)
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     @SuppressWarnings("nullness")
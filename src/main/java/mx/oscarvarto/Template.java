@@ -0,0 +1,101 @@
+package mx.oscarvarto;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// A "{}" message template, parsed once into its literal segments.
+// Rendering walks the segments and appends the arguments in order, so there is no regex work
+// and no copying of the argument array. Placeholders without a matching argument are kept
+// as "{}", and extra arguments are ignored (same as the original recursive pformat).
+// Arguments are inserted verbatim: they are neither re-scanned for "{}" nor interpreted as
+// regex replacement strings.
+public final class Template {
+
+    public static final String PLACEHOLDER = "{}";
+    // Templates are usually string literals, so the cache stays small. The bound only protects
+    // us against callers that build templates dynamically.
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    private static final ConcurrentMap<String, Template> cache = new ConcurrentHashMap<>();
+
+    private final String pattern;
+    // literals.length == number of placeholders + 1
+    private final String[] literals;
+    private final int literalsLength;
+
+    private Template(String pattern, String[] literals) {
+        this.pattern = pattern;
+        this.literals = literals;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    public static Template compile(@NonNull String pattern) {
+        @Nullable Template cached = cache.get(pattern);
+        if (cached != null) {
+            return cached;
+        }
+        Template template = parse(pattern);
+        if (cache.size() < MAX_CACHED_TEMPLATES) {
+            cache.putIfAbsent(pattern, template);
+        }
+        return template;
+    }
+
+    private static Template parse(String pattern) {
+        var literals = new ArrayList<String>();
+        int from = 0;
+        int at;
+        while ((at = pattern.indexOf(PLACEHOLDER, from)) >= 0) {
+            literals.add(pattern.substring(from, at));
+            from = at + PLACEHOLDER.length();
+        }
+        literals.add(pattern.substring(from));
+        return new Template(pattern, literals.toArray(new String[0]));
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public int placeholders() {
+        return literals.length - 1;
+    }
+
+    public String render(@NonNull String @NonNull ... args) {
+        if (literals.length == 1) {
+            return pattern;
+        }
+        return renderTo(new StringBuilder(renderedLength(args)), args).toString();
+    }
+
+    public StringBuilder renderTo(StringBuilder sb, @NonNull String @NonNull ... args) {
+        int used = Math.min(args.length, placeholders());
+        sb.append(literals[0]);
+        for (int i = 1; i < literals.length; i++) {
+            sb.append(i <= used ? args[i - 1] : PLACEHOLDER);
+            sb.append(literals[i]);
+        }
+        return sb;
+    }
+
+    private int renderedLength(String[] args) {
+        int used = Math.min(args.length, placeholders());
+        int length = literalsLength + (placeholders() - used) * PLACEHOLDER.length();
+        for (int i = 0; i < used; i++) {
+            length += args[i].length();
+        }
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
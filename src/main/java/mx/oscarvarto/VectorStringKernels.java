@@ -0,0 +1,150 @@
+package mx.oscarvarto;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.LE;
+import static jdk.incubator.vector.VectorOperators.NE;
+import static jdk.incubator.vector.VectorOperators.UNSIGNED_GE;
+
+// SIMD versions of the StringKernels, over the chars of a string copied into a scratch buffer.
+// Only ASCII is handled with vectors: as soon as a non ASCII char matters, the string is handed to
+// the scalar code, so results are always the same as String.isBlank and String.equalsIgnoreCase.
+// Only loaded (through reflection, by StringColumns) when jdk.incubator.vector is available.
+final class VectorStringKernels implements StringKernels {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    // Strings shorter than this are not worth copying into the scratch buffers
+    static final int MIN_LENGTH = SPECIES.length();
+
+    private char[] left = new char[256];
+    private char[] right = new char[256];
+
+    @Override
+    public boolean isBlank(String s) {
+        int length = s.length();
+        if (length < MIN_LENGTH) {
+            return s.isBlank();
+        }
+        char[] cs = copyLeft(s);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            var v = ShortVector.fromCharArray(SPECIES, cs, i);
+            var whitespace = asciiWhitespace(v);
+            if (!whitespace.allTrue()) {
+                return isBlankFrom(s, i + whitespace.not().firstTrue());
+            }
+        }
+        return isBlankFrom(s, i);
+    }
+
+    // Characters 9 to 13, 28 to 32: the ASCII chars for which Character.isWhitespace holds
+    private static VectorMask<Short> asciiWhitespace(ShortVector v) {
+        return v.compare(EQ, (short) ' ')
+                .or(v.compare(GE, (short) 9).and(v.compare(LE, (short) 13)))
+                .or(v.compare(GE, (short) 28).and(v.compare(LE, (short) 31)));
+    }
+
+    private static boolean isBlankFrom(String s, int from) {
+        // Everything before from is ASCII whitespace
+        for (int i = from, length = s.length(); i < length; ) {
+            int cp = s.codePointAt(i);
+            if (!Character.isWhitespace(cp)) {
+                return false;
+            }
+            i += Character.charCount(cp);
+        }
+        return true;
+    }
+
+    @Override
+    public int countDigits(String s) {
+        int length = s.length();
+        if (length < MIN_LENGTH) {
+            return ScalarStringKernels.INSTANCE.countDigits(s);
+        }
+        char[] cs = copyLeft(s);
+        int bound = SPECIES.loopBound(length);
+        int count = 0;
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            var v = ShortVector.fromCharArray(SPECIES, cs, i);
+            count += v.compare(GE, (short) '0').and(v.compare(LE, (short) '9')).trueCount();
+        }
+        for (; i < length; i++) {
+            if (cs[i] >= '0' && cs[i] <= '9') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equalsIgnoreCase(String a, String b) {
+        int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        if (length < MIN_LENGTH) {
+            return a.equalsIgnoreCase(b);
+        }
+        char[] as = copyLeft(a);
+        char[] bs = copyRight(b);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            var va = ShortVector.fromCharArray(SPECIES, as, i);
+            var vb = ShortVector.fromCharArray(SPECIES, bs, i);
+            var different = va.compare(NE, vb);
+            if (different.anyTrue()) {
+                var stillDifferent = lowerCaseAscii(va).compare(NE, lowerCaseAscii(vb)).and(different);
+                if (stillDifferent.anyTrue()) {
+                    var nonAscii = va.compare(UNSIGNED_GE, (short) 0x80).or(vb.compare(UNSIGNED_GE, (short) 0x80));
+                    return stillDifferent.and(nonAscii).anyTrue() && a.equalsIgnoreCase(b);
+                }
+            }
+        }
+        for (; i < length; i++) {
+            char ca = as[i];
+            char cb = bs[i];
+            if (ca != cb) {
+                if (ca >= 0x80 || cb >= 0x80) {
+                    return a.equalsIgnoreCase(b);
+                }
+                if (lowerCaseAscii(ca) != lowerCaseAscii(cb)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static ShortVector lowerCaseAscii(ShortVector v) {
+        var upper = v.compare(GE, (short) 'A').and(v.compare(LE, (short) 'Z'));
+        return v.add((short) ('a' - 'A'), upper);
+    }
+
+    private static char lowerCaseAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private char[] copyLeft(String s) {
+        if (left.length < s.length()) {
+            left = new char[Math.max(s.length(), left.length * 2)];
+        }
+        s.getChars(0, s.length(), left, 0);
+        return left;
+    }
+
+    private char[] copyRight(String s) {
+        if (right.length < s.length()) {
+            right = new char[Math.max(s.length(), right.length * 2)];
+        }
+        s.getChars(0, s.length(), right, 0);
+        return right;
+    }
+}
@@ -0,0 +1,83 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.Either;
+import fj.data.Option;
+import fj.data.Validation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChainTest {
+
+    @Test
+    void sameAsAndThen() {
+        F<Integer, Integer> step1 = n -> n + 1;
+        F<Integer, Integer> step2 = n -> n * 2;
+        F<Integer, String> step3 = n -> "#" + n;
+        var composed = step1.andThen(step2).andThen(step3);
+        var chain = Chain.chain(step1).andThen(step2).andThen(step3);
+        for (int n = -5; n < 5; n++) {
+            assertThat(chain.f(n)).isEqualTo(composed.f(n));
+        }
+        assertThat(chain.stages()).isEqualTo(3);
+        assertThat(Chain.chain(step2).compose(step1).f(3)).isEqualTo(8);
+        assertThat(Chain.<Integer>chain().f(7)).isEqualTo(7);
+    }
+
+    @Test
+    void chainsOfChainsStayFlat() {
+        var addOne = Chain.chain((Integer n) -> n + 1);
+        var addTwo = addOne.andThen(addOne);
+        var addFour = addTwo.andThen(addTwo);
+        assertThat(addFour.stages()).isEqualTo(4);
+        assertThat(addFour.f(0)).isEqualTo(4);
+        assertThat(Chain.chain(Collections.nCopies(10, addFour)).stages()).isEqualTo(40);
+    }
+
+    @Test
+    void longChainsDoNotOverflowTheStack() {
+        var stages = new ArrayList<F<Integer, Integer>>();
+        for (int i = 0; i < 100_000; i++) {
+            stages.add(i % 2 == 0 ? n -> n + 1 : n -> n - 1);
+        }
+        assertThat(Chain.chain(stages).f(42)).isEqualTo(42);
+    }
+
+    @Test
+    void bindsShortCircuit() {
+        var calls = new AtomicInteger();
+        F<Integer, Option<Integer>> positive = n -> {
+            calls.incrementAndGet();
+            return n > 0 ? Option.some(n - 1) : Option.none();
+        };
+        var options = Chain.chain((String s) -> Option.some(Integer.parseInt(s)));
+        for (int i = 0; i < 5; i++) {
+            options = Chain.bindOption(options, positive);
+        }
+        var described = options.andThen(o -> o.map(n -> "left " + n).orSome("none"));
+        assertThat(described.f("7")).isEqualTo("left 2");
+        assertThat(calls.get()).isEqualTo(5);
+        calls.set(0);
+        assertThat(described.f("1")).isEqualTo("none");
+        // The binds after the first none are not called
+        assertThat(calls.get()).isEqualTo(2);
+
+        var validated = Chain.bindValidation(
+                Chain.chain((Integer n) -> Validation.<String, Integer>condition(n >= 0, "negative", n)),
+                n -> Validation.<String, Integer>condition(n <= 100, "too big", n));
+        assertThat(validated.f(50)).isEqualTo(Validation.success(50));
+        assertThat(validated.f(-1)).isEqualTo(Validation.fail("negative"));
+        assertThat(validated.f(101)).isEqualTo(Validation.fail("too big"));
+
+        var either = Chain.bindEither(
+                Chain.chain((Integer n) -> n % 2 == 0 ? Either.<String, Integer>right(n) : Either.<String, Integer>left("odd")),
+                n -> Either.<String, Integer>right(n / 2));
+        assertThat(either.f(8)).isEqualTo(Either.right(4));
+        assertThat(either.f(3)).isEqualTo(Either.left("odd"));
+    }
+}
@@ -0,0 +1,102 @@
+package mx.oscarvarto;
+
+import fj.Ord;
+import fj.data.Either;
+import fj.data.List;
+import fj.data.Option;
+import fj.data.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+import static mx.oscarvarto.Codec.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CodecTest {
+
+    private static <A> byte[] bytes(Codec<A> codec, A a) {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new BinaryOutput(Channels.newChannel(bytes), 16)) {
+            out.write(codec, a);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <A> A roundTrip(Codec<A> codec, A a) {
+        var bytes = bytes(codec, a);
+        // Through a small buffer, so that values are split between refills
+        var streamed = new BinaryInput(Channels.newChannel(new java.io.ByteArrayInputStream(bytes)), 16).read(codec);
+        var mapped = new BinaryInput(ByteBuffer.wrap(bytes)).read(codec);
+        assertThat(streamed).isEqualTo(mapped);
+        return mapped;
+    }
+
+    @Test
+    void roundTrips() {
+        var dates = List.list(LocalDate.of(2011, 12, 23), LocalDate.of(1970, 1, 1), LocalDate.of(1492, 10, 12));
+        assertThat(roundTrip(listCodec(localDateCodec), dates)).isEqualTo(dates);
+        var numbers = List.list(0L, -1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE, 300L);
+        assertThat(roundTrip(listCodec(longCodec), numbers)).isEqualTo(numbers);
+        var time = LocalDateTime.of(2024, 2, 29, 23, 59, 58, 123_456_789);
+        assertThat(roundTrip(localDateTimeCodec, time)).isEqualTo(time);
+        var text = "Espa\u00f1ol, \u65e5\u672c\u8a9e, " + "x".repeat(100);
+        assertThat(roundTrip(stringCodec, text)).isEqualTo(text);
+        assertThat(roundTrip(optionCodec(intCodec), Option.some(42))).isEqualTo(Option.some(42));
+        assertThat(roundTrip(optionCodec(intCodec), Option.<Integer>none()).isNone()).isTrue();
+        assertThat(roundTrip(eitherCodec(stringCodec, doubleCodec), Either.<String, Double>left("nope")))
+                .isEqualTo(Either.left("nope"));
+        List<Validation<String, Integer>> validations = List.list(Validation.<String, Integer>success(1), Validation.fail("Age cannot be negative"),
+                Validation.fail("Age cannot be negative"));
+        assertThat(roundTrip(listCodec(validationCodec(stringCodec, intCodec)), validations)).isEqualTo(validations);
+        var allowList = fj.data.Set.set(Ord.stringOrd, "b", "a", "c");
+        assertThat(roundTrip(setCodec(Ord.stringOrd, stringCodec), allowList).toList()).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void smallValuesAreSmall() {
+        assertThat(bytes(longCodec, 0L)).hasSize(1);
+        assertThat(bytes(longCodec, -64L)).hasSize(1);
+        assertThat(bytes(listCodec(intCodec), List.range(0, 60))).hasSize(61);
+        // Repeated strings are written once
+        var repeated = List.replicate(1_000, "Name cannot be empty or contain only white space");
+        assertThat(bytes(listCodec(stringCodec), repeated).length).isLessThan(1_100);
+    }
+
+    @Test
+    void streamsThroughFiles(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("checkpoint.bin");
+        var dates = List.iterableList(IntStream.range(0, 10_000).mapToObj(LocalDate::ofEpochDay).toList());
+        Codec.write(file, listCodec(localDateCodec), dates);
+        assertThat(Codec.read(file, listCodec(localDateCodec))).isEqualTo(dates);
+
+        var records = IntStream.range(0, 1_000)
+                .mapToObj(i -> i % 3 == 0 ? Validation.<String, Integer>fail("error " + i % 7) : Validation.<String, Integer>success(i))
+                .toList();
+        var codec = validationCodec(stringCodec, intCodec);
+        Codec.writeAll(file, codec, records);
+        var read = new ArrayList<Validation<String, Integer>>();
+        Codec.forEach(file, codec, read::add);
+        assertThat(read).isEqualTo(records);
+    }
+
+    @Test
+    void truncatedInput(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("truncated.bin");
+        var bytes = bytes(listCodec(stringCodec), List.list("one", "two", "three"));
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 2));
+        assertThatThrownBy(() -> Codec.read(file, listCodec(stringCodec)))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+}
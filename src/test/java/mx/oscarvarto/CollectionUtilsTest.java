@@ -0,0 +1,53 @@
+package mx.oscarvarto;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.stream.Collectors;
+
+import static fj.data.List.list;
+import static mx.oscarvarto.CollectionUtils.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CollectionUtilsTest {
+
+    private static final @Nullable String[] WITH_NULLS = {null, "a", null, "b", "c", null};
+
+    @Test
+    void nullsAreSkipped() {
+        var expected = list("a", "b", "c");
+        assertThat(listFromArray(WITH_NULLS)).isEqualTo(expected);
+        assertThat(listFromIterable(Arrays.asList(WITH_NULLS))).isEqualTo(expected);
+        assertThat(listFromIterable(new LinkedHashSet<>(Arrays.asList(WITH_NULLS)))).isEqualTo(expected);
+        assertThat(listFromIterable(new ArrayDeque<>(expected.toJavaList()))).isEqualTo(expected);
+        assertThat(nonNullList(Arrays.asList(WITH_NULLS))).containsExactly("a", "b", "c");
+        assertThat(fromNullableCollection(Arrays.asList(WITH_NULLS)).collect(Collectors.joining())).isEqualTo("abc");
+        assertThat(countNonNull(Arrays.asList(WITH_NULLS))).isEqualTo(3);
+    }
+
+    @Test
+    void nullInputs() {
+        assertThat(listFromArray((String[]) null).isEmpty()).isTrue();
+        assertThat(listFromIterable(null).isEmpty()).isTrue();
+        assertThat(nonNullList(null)).isEmpty();
+        assertThat(fromNullableCollection(null).count()).isEqualTo(0L);
+    }
+
+    @Test
+    void inputsWithoutNullsAreNotCopied() {
+        var fjList = list("a", "b");
+        assertThat(listFromIterable(fjList)).isSameAs(fjList);
+        assertThat(listFromIterable(list("a", null, "b"))).isEqualTo(fjList);
+    }
+
+    @Test
+    void nonNullListIsACopy() {
+        java.util.List<@Nullable String> javaList = Arrays.asList("x", "y");
+        var nonNull = nonNullList(javaList);
+        javaList.set(0, null);
+        assertThat(nonNull).containsExactly("x", "y");
+    }
+}
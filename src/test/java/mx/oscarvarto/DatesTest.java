@@ -0,0 +1,79 @@
+package mx.oscarvarto;
+
+import fj.Try;
+import fj.data.List;
+import fj.data.Validation;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE;
+import static mx.oscarvarto.Dates.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatesTest {
+
+    private static final List<String> dates = List.list(
+            "2011-12-03", "2024-01-01", "2024-02-29", "2023-02-29", "2024-04-31", "2011-13-01",
+            "2011-00-10", "2011-12-00", "2011-12-32", "0000-01-01", "03-12-2011", "2011-1-01",
+            "2011/12/03", "2011-12-3", "2011-12", "", "2011-12-03x", "+10000-01-01", "-0001-01-01",
+            "20111-01-01", "abcd-ef-gh");
+
+    private static final List<String> dateTimes = List.list(
+            "2011-12-03 10:15:30", "2024-02-29 23:59:59", "2023-02-29 00:00:00",
+            "2024-04-31 12:00:00", "2024-04-32 12:00:00", "0000-01-01 00:00:00",
+            "2011-12-03 24:00:00", "2011-12-03 25:00:00", "2011-12-03 10:60:00",
+            "2011-12-03 10:15:60", "2011-12-03T10:15:30", "2011-12-03 10:15", "2011-12-03 10:15:30.5",
+            "2011-13-03 10:15:30", "2011-12-03 1:15:30", "");
+
+    @Test
+    void sameResultsAsIsoLocalDate() {
+        dates.foreachDoEffect(text -> {
+            Validation<DateTimeParseException, LocalDate> expected =
+                    Try.<String, LocalDate, DateTimeParseException>f(s -> LocalDate.parse(s, ISO_LOCAL_DATE)).f(text);
+            var actual = parseIsoLocalDate(text);
+            assertThat(actual.isSuccess()).isEqualTo(expected.isSuccess());
+            assertThat(readIsoLocalDate(text)).isEqualTo(expected.toOption());
+            if (expected.isFail()) {
+                assertThat(actual.fail().errorIndex()).isEqualTo(expected.fail().getErrorIndex());
+            }
+        });
+    }
+
+    @Test
+    void sameResultsAsDateTimeFormatter() {
+        dateTimes.foreachDoEffect(text -> {
+            Validation<DateTimeParseException, LocalDateTime> expected =
+                    Try.<String, LocalDateTime, DateTimeParseException>f(
+                            s -> LocalDateTime.parse(s, DATE_TIME_FORMATTER)).f(text);
+            var actual = parseLocalDateTime(text);
+            assertThat(actual.isSuccess()).isEqualTo(expected.isSuccess());
+            assertThat(readLocalDateTime(text)).isEqualTo(expected.toOption());
+            if (expected.isFail()) {
+                assertThat(actual.fail().errorIndex()).isEqualTo(expected.fail().getErrorIndex());
+            }
+        });
+    }
+
+    @Test
+    void errorMessagesExplainTheFailure() {
+        assertThat(parseIsoLocalDate("2011-13-01").fail().message())
+                .isEqualTo("Text '2011-13-01' could not be parsed: Invalid value for MonthOfYear (valid values 1 - 12): 13");
+        assertThat(parseIsoLocalDate("03-12-2011").fail().message())
+                .isEqualTo("Text '03-12-2011' could not be parsed at index 0");
+        assertThat(parseIsoLocalDate(null).isFail()).isTrue();
+        assertThat(readLocalDateTime(null)).isEmpty();
+    }
+
+    @Test
+    void bulkParsing() {
+        @Nullable String[] column = {"2024-01-01", "2024-13-01", null, "01-01-2024"};
+        var errorIndexes = new int[column.length];
+        var parsed = readIsoLocalDates(column, errorIndexes);
+        assertThat(parsed).containsExactly(LocalDate.of(2024, 1, 1), null, null, null);
+        assertThat(errorIndexes).containsExactly(NO_ERROR, 0, 0, 0);
+    }
+}
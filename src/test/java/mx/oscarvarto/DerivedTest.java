@@ -0,0 +1,112 @@
+package mx.oscarvarto;
+
+import fj.Ordering;
+import fj.data.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static fj.Show.listShow;
+import static fj.data.List.list;
+import static mx.oscarvarto.Hero.BATMAN;
+import static mx.oscarvarto.Hero.OPTIMUS_PRIME;
+import static mx.oscarvarto.Hero.SUPERMAN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DerivedTest {
+
+    record Champion(String name, int power, double height, Hero hero) {
+    }
+
+    record Node(long value, @Nullable Node next) {
+    }
+
+    record Tags(java.util.List<String> tags) {
+    }
+
+    // Names are compared ignoring case
+    record Alias(String name) {
+        @Override
+        public boolean equals(@Nullable Object o) {
+            return o instanceof Alias a && name.equalsIgnoreCase(a.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.toLowerCase(java.util.Locale.ROOT).hashCode();
+        }
+    }
+
+    record Aliased(Alias alias, int power) {
+    }
+
+    private final Champion batman = new Champion("Bruce", 7, 1.88, BATMAN);
+    private final Champion superman = new Champion("Clark", 10, 1.91, SUPERMAN);
+
+    @Test
+    void equalAndHashAgreeWithRecordEquals() {
+        var eq = Derived.equal(Champion.class);
+        var hash = Derived.hash(Champion.class);
+        var batmanAgain = new Champion("Bruce", 7, 1.88, BATMAN);
+        assertThat(eq.eq(batman, batmanAgain)).isEqualTo(batman.equals(batmanAgain));
+        assertThat(eq.eq(batman, superman)).isEqualTo(batman.equals(superman));
+        assertThat(eq.eq(batman, new Champion("Bruce", 7, 1.88, OPTIMUS_PRIME))).isFalse();
+        assertThat(hash.hash(batman)).isEqualTo(hash.hash(batmanAgain));
+    }
+
+    @Test
+    void overriddenEqualsIsUsed() {
+        assertThat(Derived.equal(Alias.class).eq(new Alias("Bruce"), new Alias("BRUCE"))).isTrue();
+        assertThat(Derived.hash(Alias.class).hash(new Alias("Bruce")))
+                .isEqualTo(Derived.hash(Alias.class).hash(new Alias("BRUCE")));
+        // Also for nested records
+        var eq = Derived.equal(Aliased.class);
+        assertThat(eq.eq(new Aliased(new Alias("Bruce"), 7), new Aliased(new Alias("bruce"), 7))).isTrue();
+        assertThat(eq.eq(new Aliased(new Alias("Bruce"), 7), new Aliased(new Alias("Clark"), 7))).isFalse();
+        assertThat(Derived.hash(Aliased.class).hash(new Aliased(new Alias("Bruce"), 7)))
+                .isEqualTo(Derived.hash(Aliased.class).hash(new Aliased(new Alias("bruce"), 7)));
+    }
+
+    @Test
+    void ordComparesComponentsInOrder() {
+        var ord = Derived.ord(Champion.class);
+        assertThat(ord.compare(batman, superman)).isEqualTo(Ordering.LT);
+        assertThat(ord.compare(batman, new Champion("Bruce", 6, 2.0, SUPERMAN))).isEqualTo(Ordering.GT);
+        assertThat(ord.compare(batman, new Champion("Bruce", 7, 1.88, BATMAN))).isEqualTo(Ordering.EQ);
+        assertThat(Derived.ord(Hero.class).compare(OPTIMUS_PRIME, BATMAN)).isEqualTo(Ordering.LT);
+        assertThatThrownBy(() -> Derived.ord(Tags.class))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("tags");
+    }
+
+    @Test
+    void show() {
+        assertThat(listShow(Derived.show(Champion.class)).showS(list(batman)))
+                .isEqualTo("List(Champion(Bruce,7,1.88,BATMAN))");
+        assertThat(Derived.show(Node.class).showS(new Node(1, new Node(2, null))))
+                .isEqualTo("Node(1,Node(2,null))");
+    }
+
+    @Test
+    void recursiveRecords() {
+        var eq = Derived.equal(Node.class);
+        var ord = Derived.ord(Node.class);
+        var list12 = new Node(1, new Node(2, null));
+        assertThat(eq.eq(list12, new Node(1, new Node(2, null)))).isTrue();
+        assertThat(ord.compare(list12, new Node(1, new Node(3, null)))).isEqualTo(Ordering.LT);
+        // Nulls go first
+        assertThat(ord.compare(new Node(1, null), list12)).isEqualTo(Ordering.LT);
+    }
+
+    @Test
+    void nubIsTheSameAsQuadraticNub() {
+        var characters = List.iterableList(IntStream.range(0, 2_000)
+                .mapToObj(i -> new Champion("c" + i % 37, i % 5, 1.5, Hero.values()[i % 3]))
+                .toList());
+        var expected = characters.nub(Derived.equal(Champion.class));
+        assertThat(CollectionUtils.nub(characters, Champion.class)).isEqualTo(expected);
+        assertThat(CollectionUtils.nub(characters, Champion.class)).hasSize(expected.length());
+    }
+}
@@ -0,0 +1,155 @@
+package mx.oscarvarto;
+
+import fj.data.Validation;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.checkerframework.checker.nullness.util.NullnessUtil.castNonNull;
+
+public class FlowStageTest {
+
+    // Collects everything it receives, asking for one element at a time
+    static final class Collector<T> implements Flow.Subscriber<T> {
+        final java.util.List<T> items = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<java.util.List<T>> done = new CompletableFuture<>();
+        Flow.@Nullable Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+            castNonNull(subscription).request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(items);
+        }
+    }
+
+    // Publishes 0, 1, ... count - 1 as fast as demand allows, and keeps the highest demand it saw
+    static final class Counter implements Flow.Publisher<Integer> {
+        final int count;
+        final AtomicLong maxDemand = new AtomicLong();
+
+        Counter(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Integer> subscriber) {
+            var demand = new AtomicLong();
+            var cancelled = new AtomicBoolean();
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    maxDemand.accumulateAndGet(demand.addAndGet(n), Math::max);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+            Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < count; i++) {
+                    while (demand.get() == 0) {
+                        if (cancelled.get()) {
+                            return;
+                        }
+                        LockSupport.parkNanos(10_000);
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(i);
+                }
+                subscriber.onComplete();
+            });
+        }
+    }
+
+    @Test
+    void mapKeepsOrder() throws Exception {
+        var stage = FlowStage.map((Integer n) -> n * 2);
+        var collector = new Collector<Integer>();
+        stage.subscribe(collector);
+        new Counter(1_000).subscribe(stage);
+        var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 1_000; i++) {
+            expected.add(i * 2);
+        }
+        assertThat(collector.done.get(10, TimeUnit.SECONDS)).isEqualTo(expected);
+    }
+
+    @Test
+    void failuresGoToTheSideChannel() throws Exception {
+        var stage = FlowStage.validate(Dates::parseIsoLocalDate);
+        var dates = new Collector<LocalDate>();
+        var failures = new Collector<Dates.ParseError>();
+        stage.subscribe(dates);
+        stage.<Dates.ParseError>failures().subscribe(failures);
+        try (var upstream = new SubmissionPublisher<String>()) {
+            upstream.subscribe(stage);
+            for (var s : new String[]{"2011-12-23", "2011-13-01", "2024-02-29", "29/02/2024"}) {
+                upstream.submit(s);
+            }
+        }
+        assertThat(dates.done.get(10, TimeUnit.SECONDS))
+                .containsExactly(LocalDate.of(2011, 12, 23), LocalDate.of(2024, 2, 29));
+        assertThat(failures.done.get(10, TimeUnit.SECONDS)).hasSize(2);
+    }
+
+    @Test
+    void demandIsBounded() throws Exception {
+        var settings = FlowStage.Settings.settings().withBatchSize(8).withBufferSize(4);
+        var counter = new Counter(10_000);
+        var stage = FlowStage.pipeline(Pipeline.<Integer>pipeline()
+                .filter(n -> n % 2 == 0)
+                .map(n -> n + 1), settings);
+        var collector = new Collector<Integer>();
+        stage.subscribe(collector);
+        counter.subscribe(stage);
+        assertThat(collector.done.get(10, TimeUnit.SECONDS)).hasSize(5_000);
+        // Never more than a batch asked for and not delivered yet
+        assertThat(counter.maxDemand.get()).isLessThanOrEqualTo(8L);
+    }
+
+    @Test
+    void exceptionsCancelUpstream() {
+        var stage = FlowStage.<Integer, String, Integer>validate(n -> {
+            if (n == 3) {
+                throw new IllegalStateException("three");
+            }
+            return Validation.success(n);
+        });
+        var collector = new Collector<Integer>();
+        stage.subscribe(collector);
+        new Counter(10).subscribe(stage);
+        assertThatThrownBy(() -> collector.done.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("three");
+    }
+}
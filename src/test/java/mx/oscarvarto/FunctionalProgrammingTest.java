@@ -1,6 +1,7 @@
 package mx.oscarvarto;
 
 import fj.F;
+import fj.Hash;
 import fj.Try;
 import fj.Unit;
 import fj.data.*;
@@ -54,11 +55,8 @@ public class FunctionalProgrammingTest {
             Try.<String, LocalDate, DateTimeParseException>f(
                     str -> LocalDate.parse(str, ISO_LOCAL_DATE)
             );
-    // We could handle the exception as a value, but here we decided to simply convert the
-    // Validation to an Option
-    // Exercise: Test this function
-    private static final F<String, Option<LocalDate>> readDate =
-            tryReadDate.andThen(Validation::toOption);
+    // Same function, but Dates does not build (and then discard) an exception for invalid dates
+    private static final F<String, Option<LocalDate>> readDate = Dates::readIsoLocalDate;
     private static final int MAX_AGE = 130;
 
     // Caller needs to do null checks/defensive programming to avoid NPE
@@ -75,13 +73,9 @@ public class FunctionalProgrammingTest {
         return Optional.ofNullable(dateString).map(str2LocalDateTime);
     }
 
-    // Alternative implementation.
-    // Never throws an exception
+    // Never throws an exception, and does not create one internally either
     private static Option<LocalDateTime> parseLocalDateTime(String dateString) {
-        return Try.<String, LocalDateTime, DateTimeParseException>f(
-                        str2LocalDateTime::f)
-                .andThen(Validation::toOption)
-                .f(dateString);
+        return Dates.readLocalDateTime(dateString);
     }
 
     private static String getOtherSuperHero() {
@@ -89,22 +83,19 @@ public class FunctionalProgrammingTest {
     }
 
     // Never throws exceptions
-    // This method ignores/swallows the DateTimeParseException by converting it to a Option.none()
+    // An invalid date is Option.none(). Dates does not throw (or build) an exception for it.
     private static Option<LocalDate> parseLocalDate1(@Nullable String maybeDate) {
-        var parseF = Try.f((String s) -> LocalDate.parse(s, ISO_LOCAL_DATE))
-                .andThen(Validation::toOption);
         // Write code from smaller blocks/functions!!
-        return getNonNull(maybeDate).option(none(), parseF);
+        return getNonNull(maybeDate).option(none(), Dates::readIsoLocalDate);
     }
 
     // Never throws exceptions
     // If the parsing fails for some reason, the returned value will contain a message explaining why
     private static Validation<String, LocalDate> parseLocalDate(@Nullable String maybeDate) {
-        F<DateTimeParseException, String> formatParseExF =
-                pe -> "DateTimeParseException at index: %d".formatted(pe.getErrorIndex());
+        F<Dates.ParseError, String> formatParseErrorF =
+                pe -> "Invalid date: " + pe.message();
         F<String, Validation<String, LocalDate>> parseF =
-                Try.<String, LocalDate, DateTimeParseException>f(s -> LocalDate.parse(s, ISO_LOCAL_DATE))
-                        .andThen(v -> v.f().map(formatParseExF));
+                s -> Dates.parseIsoLocalDate(s).f().map(formatParseErrorF);
         return getNonNull(maybeDate).option(
                 Validation.fail("Null or empty string"),
                 parseF
@@ -133,7 +124,7 @@ public class FunctionalProgrammingTest {
                 .toList();
 
 
-        log.info("Filtered: {}", prettyPrint(lowerCaseChars2));
+        log.info("Filtered: {}", lazyPretty(lowerCaseChars2));
     }
 
     // Using fj.data.List
@@ -142,7 +133,7 @@ public class FunctionalProgrammingTest {
         var chars = list('a', 'b', 'A', 'B');
         var lowerCaseChars2 = chars.filter(Character::isLowerCase);
 
-        log.info("Filtered: {}", pprint(lowerCaseChars2, charShow));
+        log.info("Filtered: {}", lazyPprint(lowerCaseChars2, charShow));
     }
 
     @Test
@@ -159,7 +150,7 @@ public class FunctionalProgrammingTest {
                 .map(Character::toUpperCase)
                 .toList();
 
-        log.info("Mapped to upper case: {}", prettyPrint(upperCaseChars2));
+        log.info("Mapped to upper case: {}", lazyPretty(upperCaseChars2));
     }
 
     @Test
@@ -168,7 +159,7 @@ public class FunctionalProgrammingTest {
         var upperCaseChars2 = chars
                 .map(Character::toUpperCase);
 
-        log.info("Mapped to upper case: {}", pprint(upperCaseChars2, charShow));
+        log.info("Mapped to upper case: {}", lazyPprint(upperCaseChars2, charShow));
     }
 
     @Test
@@ -181,7 +172,7 @@ public class FunctionalProgrammingTest {
                 .distinct()
                 .toList();
 
-        log.info("Unique chars: {}", prettyPrint(uniqueCharacters));
+        log.info("Unique chars: {}", lazyPretty(uniqueCharacters));
     }
 
     @Test
@@ -192,8 +183,11 @@ public class FunctionalProgrammingTest {
                 .map(word -> word.split(""))
                 .bind(fj.data.List::list)
                 .nub(stringEqual);
+        // nub compares every element with all the ones kept so far. With a Hash it is linear.
+        assertThat(CollectionUtils.nub(list(arrayOfWords).map(word -> word.split("")).bind(fj.data.List::list),
+                stringEqual, Hash.stringHash)).isEqualTo(uniqueCharacters);
 
-        log.info("Unique chars: {}", pprint(uniqueCharacters, stringShow));
+        log.info("Unique chars: {}", lazyPprint(uniqueCharacters, stringShow));
     }
 
     private void logString(String s) {
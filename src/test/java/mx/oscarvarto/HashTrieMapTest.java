@@ -0,0 +1,142 @@
+package mx.oscarvarto;
+
+import fj.Equal;
+import fj.Hash;
+import fj.data.List;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static mx.oscarvarto.StringUtils.caseInsensitiveStringHash;
+import static mx.oscarvarto.StringUtils.stringIgnoreCaseEq;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashTrieMapTest {
+
+    // Random sets and deletes, checked against java.util.HashMap
+    private static void sameAsHashMap(HashTrieMap<Integer, Integer> empty, int keyRange) {
+        var random = new Random(42);
+        var expected = new HashMap<Integer, Integer>();
+        var map = empty;
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(keyRange);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.delete(key);
+            } else {
+                expected.put(key, i);
+                map = map.set(key, i);
+            }
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (int key = 0; key < keyRange; key++) {
+            assertThat(map.getOrNull(key)).isEqualTo(expected.get(key));
+        }
+        var seen = new HashMap<Integer, Integer>();
+        for (var entry : map) {
+            seen.put(entry._1(), entry._2());
+        }
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void setGetDelete() {
+        sameAsHashMap(HashTrieMap.empty(), 5_000);
+        // Hashes that use all 32 bits, so the trie gets deeper
+        sameAsHashMap(HashTrieMap.empty(Equal.intEqual, Hash.hash(i -> i * 0x9E3779B9)), 5_000);
+    }
+
+    @Test
+    void hashCollisions() {
+        // Only 8 different hashes, so most keys end up in collision nodes
+        sameAsHashMap(HashTrieMap.empty(Equal.intEqual, Hash.hash(i -> i % 8)), 200);
+    }
+
+    @Test
+    void updatesShareTheUnchangedMap() {
+        var map = HashTrieMap.<String, Integer>empty().set("a", 1).set("b", 2);
+        var updated = map.set("a", 10);
+        assertThat(map.get("a").some()).isEqualTo(1);
+        assertThat(updated.get("a").some()).isEqualTo(10);
+        assertThat(updated.size()).isEqualTo(2);
+        assertThat(map.delete("zzz")).isSameAs(map);
+        assertThat(map.delete("a").delete("b").isEmpty()).isTrue();
+    }
+
+    @Test
+    void ignoreCaseSet() {
+        var heroes = HashTrieSet.fromJava(stringIgnoreCaseEq, caseInsensitiveStringHash,
+                java.util.Arrays.asList("Batman", null, "BATMAN", "Superman"));
+        assertThat(heroes.size()).isEqualTo(2);
+        assertThat(heroes.member("batman")).isTrue();
+        assertThat(heroes.delete("SUPERMAN").member("Superman")).isFalse();
+        assertThat(heroes.toSet(StringUtils.caseInsensitiveStringOrd).toList()).isEqualTo(List.list("Batman", "Superman"));
+    }
+
+    @Test
+    void concurrentUpdates() throws InterruptedException {
+        var ref = AtomicRef.atomicRef(HashTrieSet.<Integer>empty());
+        var counter = AtomicRef.atomicRef(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    int element = thread * 2_000 + i;
+                    if (i % 2 == 0) {
+                        ref.update(set -> set.insert(element));
+                    } else {
+                        ref.updateBatched(set -> set.insert(element));
+                    }
+                    counter.updateBatched(n -> n + 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(ref.get().size()).isEqualTo(16_000);
+        assertThat(counter.get()).isEqualTo(16_000);
+        // Batches publish several updates with one version
+        assertThat(counter.version()).isLessThanOrEqualTo(16_000L);
+
+        var snapshot = ref.snapshot();
+        ref.update(set -> set.delete(0));
+        assertThat(ref.compareAndSet(snapshot, HashTrieSet.empty())).isFalse();
+        assertThat(snapshot.value().member(0)).isTrue();
+        assertThat(ref.version()).isEqualTo(snapshot.version() + 1);
+    }
+
+    @Test
+    void failingBatchedUpdateDoesNotBlockTheOthers() throws InterruptedException {
+        var counter = AtomicRef.atomicRef(0);
+        var errors = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    if (thread == 0 && i == 1_000) {
+                        try {
+                            counter.updateBatched(n -> {
+                                throw new AssertionError("boom");
+                            });
+                        } catch (AssertionError e) {
+                            errors.incrementAndGet();
+                        }
+                    } else {
+                        counter.updateBatched(n -> n + 1);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        assertThat(errors.get()).isEqualTo(1);
+        assertThat(counter.get()).isEqualTo(15_999);
+    }
+}
@@ -1,11 +1,21 @@
 package mx.oscarvarto;
 
 import fj.F;
+import fj.F2;
+import fj.Ord;
 import fj.Show;
 import fj.data.List;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @Slf4j
 public class HelloPipelineTest {
 
@@ -42,4 +52,112 @@ public class HelloPipelineTest {
         String prettyOutput = Show.listShow(Show.intShow).showS(output);
         log.info(prettyOutput);
     }
+
+    @Test
+    void pipelineTest1() {
+        // Same steps as listTest1, but fused: each element goes through the 4 steps in one pass,
+        // and only one list is built at the end.
+        var stats = new ArrayList<Pipeline.StageStats>();
+        Pipeline<Integer, Integer> pipeline1 = Pipeline.<Integer>pipeline()
+                .map(n -> n + 1).named("Step 1")
+                .map(n -> n + 2).named("Step 2")
+                .map(n -> n + 3).named("Step 3")
+                .map(n -> n + 4).named("Step 4")
+                .observe(stats::add);
+
+        var output = pipeline1.run(List.list(1, 2, 3, 4, 5));
+        assertThat(output).containsExactly(11, 12, 13, 14, 15);
+        log.info(Show.listShow(Show.intShow).showS(output));
+
+        assertThat(stats).hasSize(4);
+        stats.forEach(s -> {
+            assertThat(s.elementsIn()).isEqualTo(5L);
+            log.info("{}: {} elements in {} ns", s.name(), s.elementsIn(), s.nanos());
+        });
+    }
+
+    @Test
+    void pipelineTest2() {
+        Pipeline<String, Integer> wordLengths = Pipeline.<String>pipeline()
+                .filter(s -> !s.isBlank())
+                .bind(s -> List.list(s.split(" ")))
+                .map(String::length);
+
+        assertThat(wordLengths.run(List.list("hello world", " ", "functional java")))
+                .containsExactly(5, 5, 10, 4);
+        assertThat(wordLengths.run(new String[]{"a bb", "ccc"})).containsExactly(1, 2, 3);
+        assertThat(wordLengths.run(Stream.of("dddd"))).containsExactly(4);
+        assertThat(wordLengths.foldLeft(List.list("a bb", "ccc"), Integer::sum, 0)).isEqualTo(6);
+    }
+
+    @Test
+    void pipelineAsListStepTest() {
+        F<List<Integer>, List<Integer>> step = Pipeline.<Integer>pipeline()
+                .map(n -> n * 2)
+                .filter(n -> n > 4)
+                .toListF();
+
+        var output = step.andThen(ns -> ns.map(n -> n + 1)).f(List.list(1, 2, 3, 4));
+        assertThat(output).containsExactly(7, 9);
+    }
+
+    @Test
+    void parallelPipelineTest() {
+        var input = List.range(0, 100_000);
+        Pipeline<Integer, Integer> pipeline1 = Pipeline.<Integer>pipeline()
+                .map(n -> n + 1)
+                .filter(n -> n % 2 == 0)
+                .bind(n -> List.list(n, -n));
+        var parallelism = Pipeline.Parallelism.parallelism().withThreshold(1_000);
+
+        var expected = pipeline1.run(input);
+        assertThat(pipeline1.parallel(parallelism).run(input)).isEqualTo(expected);
+        assertThat(pipeline1.parallel(parallelism).run(input.toJavaList())).isEqualTo(expected);
+        // An Iterable that can only be iterated once
+        var once = input.iterator();
+        assertThat(pipeline1.parallel(parallelism).run(() -> once)).isEqualTo(expected);
+        // Unordered runs keep the elements, but not necessarily their order
+        assertThat(pipeline1.parallel(parallelism.unordered()).run(input).sort(Ord.intOrd))
+                .isEqualTo(expected.sort(Ord.intOrd));
+        // Below the threshold the pipeline runs sequentially
+        assertThat(pipeline1.parallel().run(List.list(1, 2, 3))).containsExactly(2, -2, 4, -4);
+
+        var seen = new ArrayList<Integer>();
+        pipeline1.parallel(parallelism).forEach(input, seen::add);
+        assertThat(seen).isEqualTo(expected.toJavaList());
+        F2<Long, Integer, Long> sum = (total, n) -> total + n;
+        assertThat(pipeline1.parallel(parallelism.unordered()).foldLeft(input, sum, 0L))
+                .isEqualTo(pipeline1.foldLeft(input, sum, 0L));
+    }
+
+    @Test
+    void unorderedChunksAreHandedOnAsTheyFinish() {
+        var pool = new ForkJoinPool(4);
+        try {
+            // The first element waits until results of some other chunk have reached the effect.
+            // An ordered run would wait for it before handing on anything.
+            var othersSeen = new CountDownLatch(1);
+            var pipeline = Pipeline.<Integer>pipeline()
+                    .map(n -> {
+                        if (n == 0) {
+                            try {
+                                assertThat(othersSeen.await(10, TimeUnit.SECONDS)).isTrue();
+                            } catch (InterruptedException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                        return n;
+                    })
+                    .parallel(Pipeline.Parallelism.parallelism().withPool(pool).withThreshold(100).unordered());
+            var seen = new ArrayList<Integer>();
+            pipeline.forEach(List.range(0, 10_000), n -> {
+                seen.add(n);
+                othersSeen.countDown();
+            });
+            assertThat(seen).hasSize(10_000);
+            assertThat(seen.get(0)).isNotEqualTo(0);
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
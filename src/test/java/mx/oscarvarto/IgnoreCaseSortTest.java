@@ -0,0 +1,58 @@
+package mx.oscarvarto;
+
+import fj.data.List;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static mx.oscarvarto.StringUtils.caseInsensitiveStringOrd;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IgnoreCaseSortTest {
+
+    // Mixed case ASCII, Latin-1 (with chars whose case folding leaves Latin-1), Greek, a
+    // supplementary char and private use chars above the surrogates
+    private static final String ALPHABET = "aAbBzZ09 _\u00b5\u00ff\u00df\u00e9\u00c9\u0130\u0131\u03a3\u03c3\u03c2\ue000\uff21";
+
+    private static String randomName(SplittableRandom random) {
+        var sb = new StringBuilder();
+        for (int i = random.nextInt(8); i > 0; i--) {
+            if (random.nextInt(40) == 0) {
+                sb.appendCodePoint(0x10400 + random.nextInt(2) * 0x28);
+            } else {
+                sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void sameOrderAsCaseInsensitiveStringOrd() {
+        var random = new SplittableRandom(42);
+        var names = new ArrayList<String>();
+        for (int i = 0; i < 50_000; i++) {
+            names.add(randomName(random));
+        }
+        var expected = List.iterableList(names).sort(caseInsensitiveStringOrd);
+        assertThat(IgnoreCaseSort.sorted(names)).isEqualTo(expected);
+
+        var array = names.toArray(new String[0]);
+        IgnoreCaseSort.sort(array);
+        assertThat(Arrays.asList(array)).isEqualTo(expected.toJavaList());
+    }
+
+    @Test
+    void stableAndWithoutNulls() {
+        var names = Arrays.asList("bob", null, "Alice", "BOB", "alice", null, "Bob");
+        assertThat(IgnoreCaseSort.sorted(names)).containsExactly("Alice", "alice", "bob", "BOB", "Bob");
+    }
+
+    @Test
+    void setKeepsTheFirstOfEqualStrings() {
+        var set = IgnoreCaseSort.set(Arrays.asList("bob", "Alice", null, "BOB", "alice", "carol"));
+        assertThat(set.toList()).containsExactly("Alice", "bob", "carol");
+        assertThat(set.member("ALICE")).isTrue();
+    }
+}
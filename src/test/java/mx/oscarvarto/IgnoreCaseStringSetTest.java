@@ -0,0 +1,46 @@
+package mx.oscarvarto;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.stream.IntStream;
+
+import static mx.oscarvarto.StringUtils.caseInsensitiveStringOrd;
+import static mx.oscarvarto.StringUtils.filterNullOrBlank;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IgnoreCaseStringSetTest {
+
+    @Test
+    void membershipIgnoresCase() {
+        var heroes = IgnoreCaseStringSet.set("Batman", "Superman", "BATMAN");
+        assertThat(heroes.size()).isEqualTo(2);
+        assertThat(heroes.member("batman")).isTrue();
+        assertThat(heroes.member("SUPERMAN")).isTrue();
+        assertThat(heroes.member("Joker")).isFalse();
+        assertThat(heroes.member(null)).isFalse();
+        assertThat(heroes).containsExactlyInAnyOrder("Batman", "Superman");
+    }
+
+    @Test
+    void sameElementsAsFilterNullOrBlank() {
+        var input = new HashSet<@Nullable String>(Arrays.asList("Batman", "batman", " ", "", null, "Joker"));
+        var hashSet = IgnoreCaseStringSet.nonBlank(input);
+        var treeSet = filterNullOrBlank(caseInsensitiveStringOrd, new HashSet<>(Arrays.asList("Batman", "batman", " ", "", "Joker")));
+        assertThat(hashSet.size()).isEqualTo(treeSet.size());
+        treeSet.forEach(s -> assertThat(hashSet.member(s)).isTrue());
+        assertThat(hashSet.toSet().size()).isEqualTo(treeSet.size());
+        assertThat(IgnoreCaseStringSet.fromJava(null).isEmpty()).isTrue();
+    }
+
+    @Test
+    void largeSets() {
+        var names = IntStream.range(0, 100_000).mapToObj(i -> "Name" + i).toList();
+        var set = IgnoreCaseStringSet.fromJava(names);
+        assertThat(set.size()).isEqualTo(100_000);
+        assertThat(set.member("NAME99999")).isTrue();
+        assertThat(set.member("name100000")).isFalse();
+    }
+}
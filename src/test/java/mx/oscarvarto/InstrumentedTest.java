@@ -0,0 +1,77 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.List;
+import fj.data.Option;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InstrumentedTest {
+
+    @Test
+    void countsCallsAndFailures() {
+        var instrumented = new Instrumented("dates");
+        F<String, Option<java.time.LocalDate>> readDate = instrumented.option("readDate", Dates::readIsoLocalDate);
+        readDate.f("2011-12-23");
+        readDate.f("2011-13-01");
+        readDate.f("nope");
+        var parse = instrumented.f("parseInt", (String s) -> Integer.parseInt(s));
+        assertThatThrownBy(() -> parse.f("x")).isInstanceOf(NumberFormatException.class);
+
+        var metrics = instrumented.metrics("readDate");
+        assertThat(metrics.calls()).isEqualTo(3L);
+        assertThat(metrics.failures()).isEqualTo(2L);
+        assertThat(metrics.latency().count()).isEqualTo(3L);
+        assertThat(instrumented.metrics("parseInt").exceptions()).isEqualTo(1L);
+        assertThat(instrumented.allMetrics().stream().map(Instrumented.Metrics::name).toList())
+                .containsExactly("parseInt", "readDate");
+        instrumented.report();
+    }
+
+    @Test
+    void listAndPipelineSizes() {
+        var instrumented = new Instrumented("numbers");
+        var evens = instrumented.list("evens", (List<Integer> ns) -> ns.filter(n -> n % 2 == 0));
+        assertThat(evens.f(List.range(0, 10))).isEqualTo(List.list(0, 2, 4, 6, 8));
+
+        var pipeline = Pipeline.<Integer>pipeline()
+                .map(n -> n * 3).named("triple")
+                .filter(n -> n % 2 == 0).named("even")
+                .observe(instrumented.pipelineObserver("p"));
+        pipeline.run(List.range(0, 10));
+        pipeline.run(List.range(0, 10));
+
+        assertThat(instrumented.metrics("evens").elementsIn()).isEqualTo(10L);
+        assertThat(instrumented.metrics("evens").elementsOut()).isEqualTo(5L);
+        var even = instrumented.metrics("p/even");
+        assertThat(even.calls()).isEqualTo(2L);
+        assertThat(even.elementsIn()).isEqualTo(20L);
+        assertThat(even.elementsOut()).isEqualTo(10L);
+        assertThat(even.summary()).startsWith("p/even: 2 calls, 0.00% failed").endsWith("20 in, 10 out");
+    }
+
+    @Test
+    void histogramPercentiles() {
+        var histogram = new LatencyHistogram();
+        var random = new Random(42);
+        var values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.abs(random.nextGaussian() * 1_000_000);
+            histogram.record(values[i]);
+        }
+        java.util.Arrays.sort(values);
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            long estimate = histogram.percentile(p);
+            assertThat(estimate).isGreaterThanOrEqualTo(exact);
+            assertThat(estimate).isLessThanOrEqualTo(exact + exact / 8 + 1);
+        }
+        assertThat(histogram.max()).isEqualTo(values[values.length - 1]);
+        assertThat(histogram.percentile(100)).isEqualTo(histogram.max());
+        assertThat(LatencyHistogram.highestValue(LatencyHistogram.bucket(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+}
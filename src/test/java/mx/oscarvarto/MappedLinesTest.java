@@ -0,0 +1,128 @@
+package mx.oscarvarto;
+
+import fj.data.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MappedLinesTest {
+
+    private static java.util.List<String> lines(MappedLines mapped) {
+        var lines = new ArrayList<String>();
+        mapped.forEach(line -> lines.add(line.decodeUtf8()));
+        return lines;
+    }
+
+    @Test
+    void linesAndFields(@TempDir Path directory) throws IOException {
+        var file = Files.writeString(directory.resolve("people.csv"),
+                "1,Luke Skywalker,1977-05-25\r\n2,  ,1980-13-01\n\n3,J\u00f6rg,2024-02-29", StandardCharsets.UTF_8);
+        try (var mapped = MappedLines.open(file)) {
+            assertThat(lines(mapped)).containsExactly("1,Luke Skywalker,1977-05-25", "2,  ,1980-13-01", "",
+                    "3,J\u00f6rg,2024-02-29");
+            var names = new ArrayList<String>();
+            var blank = new ArrayList<Boolean>();
+            var fields = new ArrayList<Integer>();
+            mapped.forEach(line -> {
+                fields.add(line.fields());
+                if (line.fields() == 3) {
+                    names.add(line.field(1).decodeUtf8());
+                    blank.add(line.field(1).isBlank());
+                }
+            });
+            assertThat(fields).containsExactly(3, 3, 1, 3);
+            assertThat(names).containsExactly("Luke Skywalker", "  ", "J\u00f6rg");
+            assertThat(blank).containsExactly(false, true, false);
+        }
+    }
+
+    @Test
+    void bytesAreIso88591Chars(@TempDir Path directory) throws IOException {
+        var file = Files.writeString(directory.resolve("names.csv"), "J\u00f6rg", StandardCharsets.UTF_8);
+        try (var mapped = MappedLines.open(file)) {
+            mapped.forEach(line -> {
+                // The two UTF-8 bytes of \u00f6 are two chars
+                assertThat(line.length()).isEqualTo(5);
+                assertThat(line.toString()).hasSize(line.length());
+                assertThat(new StringBuilder().append(line).toString()).isEqualTo(line.toString());
+                assertThat(line.contentEquals(line.toString())).isTrue();
+                assertThat(line.contentEquals("J\u00f6rg")).isFalse();
+                assertThat(line.decodeUtf8()).isEqualTo("J\u00f6rg");
+            });
+        }
+    }
+
+    @Test
+    void checksRunOnTheBytes(@TempDir Path directory) throws IOException {
+        var file = Files.writeString(directory.resolve("dates.csv"), "a|(55) 1234-5678|2011-12-23\nb|n/a|2011-13-01\n");
+        try (var mapped = MappedLines.open(file, '|')) {
+            var failures = Partitioner.Sink.<Dates.ParseError>list();
+            var dates = Partitioner.Sink.<LocalDate>list();
+            try (var partitioner = Partitioner.partitioner(failures, dates)) {
+                mapped.validate(MappedLines.Line.field(2, Dates::parseIsoLocalDate), partitioner);
+            }
+            assertThat(dates.toList()).containsExactly(LocalDate.of(2011, 12, 23));
+            assertThat(failures.toList()).hasSize(1);
+
+            var phones = new ArrayList<Long>();
+            mapped.forEach(line -> phones.add(StringUtils.digitsOnlyAsLong(line.field(1))));
+            assertThat(phones).containsExactly(5512345678L, StringUtils.NO_DIGITS);
+        }
+    }
+
+    @Test
+    void splitsCoverEveryLineOnce(@TempDir Path directory) throws IOException {
+        var expected = IntStream.range(0, 1_000).mapToObj(i -> i + "," + "x".repeat(i % 17)).toList();
+        var file = Files.writeString(directory.resolve("lines.csv"), expected.stream().collect(Collectors.joining("\n", "", "\n")));
+        // A small window, so that lines cross window boundaries
+        try (var mapped = new MappedLines(file, ',', 64)) {
+            assertThat(lines(mapped)).isEqualTo(expected);
+            for (int parts : new int[]{1, 2, 3, 7, 64, 5_000}) {
+                var splits = mapped.split(parts);
+                assertThat(splits.get(0).start()).isEqualTo(0L);
+                assertThat(splits.get(splits.size() - 1).end()).isEqualTo(mapped.size());
+                var all = mapped.parallel(parts, split -> {
+                    var lines = new ArrayList<String>();
+                    split.forEach(line -> lines.add(line.toString()));
+                    return lines;
+                });
+                assertThat(all.stream().flatMap(java.util.List::stream).toList()).isEqualTo(expected);
+            }
+            assertThat(mapped.count()).isEqualTo(1_000L);
+        }
+    }
+
+    @Test
+    void validateWithValidationCombinators(@TempDir Path directory) throws IOException {
+        var file = Files.writeString(directory.resolve("ids.csv"), "12\nx\n34\n");
+        try (var mapped = MappedLines.open(file)) {
+            var errors = Partitioner.Sink.<String>list();
+            var ids = Partitioner.Sink.<Long>list();
+            try (var partitioner = Partitioner.partitioner(errors, ids)) {
+                mapped.validate(line -> line.allDigits()
+                        ? Validation.success(StringUtils.digitsOnlyAsLong(line))
+                        : Validation.fail("Not a number: " + line), partitioner);
+            }
+            assertThat(ids.toList()).containsExactly(12L, 34L);
+            assertThat(errors.toList()).containsExactly("Not a number: x");
+
+            // The Line is reused for the next line, so it cannot be kept as a result
+            try (var partitioner = Partitioner.partitioner(Partitioner.Sink.<String>list(),
+                    Partitioner.Sink.<CharSequence>list())) {
+                assertThatThrownBy(() -> mapped.validate(line -> Validation.<String, CharSequence>success(line.field(0)),
+                        partitioner)).isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.Option;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MemoTest {
+
+    @Test
+    void repeatedInputsAreComputedOnce() {
+        var calls = new AtomicInteger();
+        F<String, Option<LocalDate>> readDate = s -> {
+            calls.incrementAndGet();
+            return Dates.readIsoLocalDate(s);
+        };
+        var memoized = Memo.memo(readDate);
+
+        assertThat(memoized.f("2011-12-23")).isEqualTo(Option.some(LocalDate.of(2011, 12, 23)));
+        assertThat(memoized.f("2011-12-23")).isEqualTo(Option.some(LocalDate.of(2011, 12, 23)));
+        assertThat(memoized.f("2011-13-01").isNone()).isTrue();
+        assertThat(calls.get()).isEqualTo(2);
+
+        var stats = memoized.stats();
+        assertThat(stats.hits()).isEqualTo(1L);
+        assertThat(stats.misses()).isEqualTo(2L);
+        assertThat(stats.size()).isEqualTo(2L);
+    }
+
+    @Test
+    void boundedSize() {
+        var square = Memo.memo((Integer i) -> i * i, 100);
+        IntStream.range(0, 1_000).forEach(i -> assertThat(square.f(i)).isEqualTo(i * i));
+        assertThat(square.stats().size()).isLessThanOrEqualTo(100L);
+        assertThat(square.stats().evictions()).isGreaterThanOrEqualTo(900L);
+    }
+
+    @Test
+    void concurrentCallers() {
+        var computed = ConcurrentHashMap.<Integer>newKeySet();
+        var calls = new AtomicInteger();
+        var memoized = Memo.memo((Integer i) -> {
+            computed.add(i);
+            calls.incrementAndGet();
+            return "#" + i;
+        });
+        IntStream.range(0, 10_000).parallel().forEach(i -> assertThat(memoized.f(i % 50)).isEqualTo("#" + i % 50));
+        assertThat(computed).hasSize(50);
+        // Callers asking for a value that is being computed wait for it
+        assertThat(calls.get()).isEqualTo(50);
+    }
+
+    @Test
+    void exceptionsAreNotWrapped() {
+        var memoized = Memo.memo((String s) -> Integer.parseInt(s));
+        assertThatThrownBy(() -> memoized.f("x")).isInstanceOf(NumberFormatException.class);
+        assertThat(memoized.f("42")).isEqualTo(42);
+    }
+}
@@ -0,0 +1,140 @@
+package mx.oscarvarto;
+
+import fj.data.Either;
+import fj.data.List;
+import fj.data.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static fj.data.Either.left;
+import static fj.data.Either.right;
+import static fj.data.List.list;
+import static mx.oscarvarto.Hero.BATMAN;
+import static mx.oscarvarto.Hero.OPTIMUS_PRIME;
+import static mx.oscarvarto.Villain.JOKER;
+import static mx.oscarvarto.Villain.LEX_LUTHOR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PartitionerTest {
+
+    private final List<Either<Villain, Hero>> characters =
+            list(left(JOKER), right(OPTIMUS_PRIME), left(LEX_LUTHOR), right(BATMAN));
+
+    @Test
+    void sameAsLeftsAndRights() {
+        var split = Partitioner.partitionEithers(characters);
+        assertThat(split._1()).isEqualTo(Either.lefts(characters));
+        assertThat(split._2()).isEqualTo(Either.rights(characters));
+    }
+
+    @Test
+    void validations() {
+        List<Validation<String, Integer>> validated =
+                list(Validation.success(1), Validation.fail("two"), Validation.success(3), Validation.fail("four"));
+        var split = Partitioner.partitionValidations(validated);
+        assertThat(split._1()).containsExactly("two", "four");
+        assertThat(split._2()).isEqualTo(Validation.successes(validated));
+    }
+
+    @Test
+    void callbacksAndCounts() {
+        var villains = new ArrayList<Villain>();
+        var heroes = new ArrayList<Hero>();
+        try (var partitioner = Partitioner.partitioner(
+                Partitioner.Sink.<Villain>callback(villains::add), Partitioner.Sink.<Hero>callback(heroes::add))) {
+            partitioner.eithers(characters).either(right(BATMAN));
+            assertThat(partitioner.leftCount()).isEqualTo(2L);
+            assertThat(partitioner.rightCount()).isEqualTo(3L);
+            assertThat(partitioner.count()).isEqualTo(5L);
+        }
+        assertThat(villains).containsExactly(JOKER, LEX_LUTHOR);
+        assertThat(heroes).containsExactly(OPTIMUS_PRIME, BATMAN, BATMAN);
+    }
+
+    @Test
+    void boundedBatches() {
+        var batches = new ArrayList<List<Integer>>();
+        try (var partitioner = Partitioner.<String, Integer>partitioner(
+                Partitioner.Sink.discard(), Partitioner.Sink.batches(2, batches::add))) {
+            for (int i = 0; i < 5; i++) {
+                partitioner.validation(i % 2 == 0 ? Validation.success(i) : Validation.fail("odd"));
+                partitioner.validation(Validation.success(i * 10));
+            }
+            partitioner.validation(Validation.success(50));
+            // The last batch is handed over on close
+            assertThat(batches).hasSize(4);
+        }
+        assertThat(batches).containsExactly(list(0, 0), list(10, 2), list(20, 30), list(4, 40), list(50));
+    }
+
+    @Test
+    void failuresSpillToDisk(@TempDir Path directory) {
+        var failures = Partitioner.Sink.<String>spilling(2, s -> s, directory);
+        var successes = Partitioner.Sink.<Integer>list();
+        try (var partitioner = Partitioner.partitioner(failures, successes)) {
+            for (int i = 0; i < 10; i++) {
+                partitioner.validation(i < 7 ? Validation.fail("error " + i) : Validation.success(i));
+            }
+        }
+        assertThat(failures.inMemory()).containsExactly("error 0", "error 1");
+        assertThat(failures.spilled()).isEqualTo(5L);
+        assertThat(failures.file().isSome()).isTrue();
+        assertThat(failures.toList(s -> s))
+                .containsExactly("error 0", "error 1", "error 2", "error 3", "error 4", "error 5", "error 6");
+        assertThat(successes.toList()).containsExactly(7, 8, 9);
+        // Deleted once read back
+        assertThat(failures.file().isNone()).isTrue();
+    }
+
+    @Test
+    void spilledElementsAreReadBackOnce(@TempDir Path directory) {
+        var failures = Partitioner.Sink.<String>spilling(1, s -> s, directory);
+        failures.accept("a");
+        failures.accept("b");
+        // Not closed yet: toList closes (and flushes) first
+        assertThat(failures.toList(s -> s)).containsExactly("a", "b");
+        assertThatThrownBy(() -> failures.toList(s -> s)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> failures.accept("c")).isInstanceOf(IllegalStateException.class);
+        assertThat(failures.spilled()).isEqualTo(1L);
+    }
+
+    @Test
+    void acceptAfterCloseAppends(@TempDir Path directory) {
+        var failures = Partitioner.Sink.<String>spilling(0, s -> s, directory);
+        failures.accept("a");
+        failures.close();
+        failures.accept("b");
+        assertThat(failures.toList(s -> s)).containsExactly("a", "b");
+    }
+
+    @Test
+    void spilledLineBreaksAreKept(@TempDir Path directory) throws Exception {
+        var failures = Partitioner.Sink.<String>spilling(0, s -> s, directory);
+        try (var partitioner = Partitioner.<String, Integer>partitioner(failures, Partitioner.Sink.discard())) {
+            partitioner.validation(Validation.fail("line 1\nline 2"));
+            partitioner.validation(Validation.fail("a\r\nb"));
+            partitioner.validation(Validation.fail(""));
+        }
+        assertThat(failures.toList(s -> s)).containsExactly("line 1\nline 2", "a\r\nb", "");
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    void nothingSpilledBelowThreshold(@TempDir Path directory) throws Exception {
+        var failures = Partitioner.Sink.<String>spilling(10, s -> s, directory);
+        try (var partitioner = Partitioner.<String, Integer>partitioner(failures, Partitioner.Sink.discard())) {
+            partitioner.validation(Validation.fail("error"));
+        }
+        assertThat(failures.file().isNone()).isTrue();
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(0L);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package mx.oscarvarto;
+
+import fj.data.List;
+import org.junit.jupiter.api.Test;
+
+import static fj.Ord.longOrd;
+import static fj.Show.intShow;
+import static fj.Show.listShow;
+import static fj.Show.longShow;
+import static fj.Show.setShow;
+import static mx.oscarvarto.StringUtils.pprint;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrimitiveCollectionsTest {
+
+    @Test
+    void longListTest() {
+        var ls = LongList.list(1, 2, 3, 4, 5);
+        assertThat(ls.map(l -> l * 10).filter(l -> l > 20).toList()).containsExactly(30L, 40L, 50L);
+        assertThat(ls.bind(l -> LongList.list(l, -l)).length()).isEqualTo(10);
+        assertThat(ls.foldLeft(Long::sum, 0L)).isEqualTo(15L);
+        assertThat(ls.tail().head()).isEqualTo(2L);
+        assertThat(ls.cons(0).snoc(6)).isEqualTo(LongList.range(0, 7));
+        assertThat(LongList.fromList(List.list(7L, 8L)).toList()).containsExactly(7L, 8L);
+    }
+
+    @Test
+    void intListTest() {
+        var is = IntList.range(1, 6);
+        assertThat(is.map(n -> n + 1).filter(n -> n % 2 == 0).toList()).containsExactly(2, 4, 6);
+        assertThat(is.sum()).isEqualTo(15);
+        assertThat(is.drop(3)).isEqualTo(IntList.list(4, 5));
+        assertThat(IntList.empty().isEmpty()).isTrue();
+    }
+
+    @Test
+    void listsShareWithoutChanging() {
+        var ls = LongList.list(1, 2, 3);
+        var four = ls.snoc(4);
+        var five = ls.snoc(5);
+        assertThat(four).isEqualTo(LongList.list(1, 2, 3, 4));
+        assertThat(five).isEqualTo(LongList.list(1, 2, 3, 5));
+        assertThat(ls).isEqualTo(LongList.list(1, 2, 3));
+        assertThat(ls.tail().cons(9)).isEqualTo(LongList.list(9, 2, 3));
+        assertThat(ls.take(2).snoc(7)).isEqualTo(LongList.list(1, 2, 7));
+        assertThat(four.append(five)).isEqualTo(LongList.list(1, 2, 3, 4, 1, 2, 3, 5));
+
+        // Amortized O(1) per element, both ways
+        var is = IntList.empty();
+        for (int i = 0; i < 100_000; i++) {
+            is = is.cons(-i).snoc(i);
+        }
+        assertThat(is.length()).isEqualTo(200_000);
+        assertThat(is.head()).isEqualTo(-99_999);
+        assertThat(is.index(199_999)).isEqualTo(99_999);
+        assertThat(is.drop(199_990).sum()).isEqualTo(IntList.range(99_990, 100_000).sum());
+    }
+
+    @Test
+    void longSetTest() {
+        var ls = LongSet.of(5, 3, 3, 1);
+        assertThat(ls.size()).isEqualTo(3);
+        assertThat(ls.member(3)).isTrue();
+        assertThat(ls.member(4)).isFalse();
+        assertThat(ls.insert(4).delete(5).toLongList()).isEqualTo(LongList.list(1, 3, 4));
+        assertThat(ls.union(LongSet.of(2, 5, 8)).toLongList()).isEqualTo(LongList.list(1, 2, 3, 5, 8));
+        assertThat(LongSet.fromSet(ls.toSet())).isEqualTo(ls);
+    }
+
+    @Test
+    void renderedLikeTheBoxedCollections() {
+        var ls = LongList.list(1, -2, 3);
+        assertThat(pprint(ls)).isEqualTo(pprint(ls.toList()));
+        assertThat(pprint(ls)).isEqualTo(listShow(longShow).showS(ls.toList()));
+        assertThat(pprint(IntList.list(4, 5))).isEqualTo(listShow(intShow).showS(List.list(4, 5)));
+        var set = LongSet.of(3, 1, 2);
+        assertThat(pprint(set)).isEqualTo(setShow(longShow).showS(fj.data.Set.set(longOrd, 1L, 2L, 3L)));
+    }
+}
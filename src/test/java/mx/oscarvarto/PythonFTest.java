@@ -0,0 +1,67 @@
+package mx.oscarvarto;
+
+import fj.F;
+import fj.data.List;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PythonFTest {
+
+    private static final String CODE = """
+            def shout(s):
+                return s.upper() + "!"
+
+            def total(xs):
+                return sum(xs)
+            """;
+
+    private static PythonF<String, String> shout;
+    private static PythonF<long[], Long> total;
+
+    @BeforeAll
+    static void startPython() {
+        shout = PythonF.pythonF(CODE, "shout", Value::asString, 2);
+        total = PythonF.pythonF(CODE, "total", Value::asLong, 1);
+    }
+
+    @AfterAll
+    static void stopPython() {
+        shout.close();
+        total.close();
+    }
+
+    @Test
+    void pythonFunctionAsF() {
+        F<String, Integer> length = String::length;
+        assertThat(shout.andThen(length).f("hola")).isEqualTo(5);
+        assertThat(Pipeline.<String>pipeline().map(shout).run(List.list("a", "b"))).isEqualTo(List.list("A!", "B!"));
+    }
+
+    @Test
+    void batchMatchesMap() {
+        var names = List.list("batman", "robin", "joker");
+        assertThat(shout.batch(names)).isEqualTo(names.map(shout));
+        assertThat(shout.batch(List.nil()).isEmpty()).isTrue();
+    }
+
+    @Test
+    void arraysAreProxied() {
+        assertThat(total.f(new long[]{1, 2, 3, 4})).isEqualTo(10L);
+    }
+
+    @Test
+    void listsAreReadOnly() {
+        var values = new java.util.ArrayList<>(java.util.List.of(1L, 2L, 3L));
+        try (var overwrite = PythonF.<java.util.List<Long>, Long>pythonF(
+                "def overwrite(xs):\n    xs[0] = 9\n    return xs[0]\n", "overwrite", Value::asLong, 1)) {
+            assertThatThrownBy(() -> overwrite.f(values)).isInstanceOf(PolyglotException.class);
+        }
+        assertThat(values).containsExactly(1L, 2L, 3L);
+    }
+}
@@ -0,0 +1,83 @@
+package mx.oscarvarto;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StringColumnsTest {
+
+    // Some chars whose case folding or whitespace status is not what ASCII rules would say
+    private static final String ALPHABET = "aAzZ09 \t\n\u000B\u001C\u00A0\u2003\u3000\u00E9\u00C9\u00DF\u0130\u0131Kk\u212A\uD801\uDC00\uD801\uDC28-_";
+
+    private static String randomString(Random random, int length) {
+        var sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    // Strings long enough for the vector loops, mostly ASCII so that the fast paths are taken
+    private static @Nullable String[] column(Random random, int size) {
+        return IntStream.range(0, size).mapToObj(i -> switch (i % 6) {
+            case 0 -> null;
+            case 1 -> " ".repeat(i % 70) + (i % 4 == 1 ? "\u2003" : "") + (i % 8 == 1 ? "x" : "");
+            case 2 -> String.valueOf(i).repeat(1 + i % 20);
+            case 3 -> "Hello, World! ".repeat(1 + i % 5);
+            default -> randomString(random, i % 80);
+        }).toArray(String[]::new);
+    }
+
+    @Test
+    void sameResultsAsStringMethods() {
+        var random = new Random(42);
+        var column = column(random, 3_000);
+        var other = column.clone();
+        for (int i = 0; i < other.length; i++) {
+            String s = other[i];
+            if (s != null && i % 3 == 0) {
+                other[i] = i % 2 == 0 ? s.toUpperCase() : s.toLowerCase();
+            }
+        }
+        var blank = StringColumns.nullOrBlank(column);
+        var digitCounts = StringColumns.digitCounts(column);
+        var allDigits = StringColumns.allDigits(column);
+        var equal = StringColumns.equalsIgnoreCase(column, other);
+        for (int i = 0; i < column.length; i++) {
+            String s = column[i];
+            String o = other[i];
+            assertThat(blank[i]).as("[" + s + "]").isEqualTo(s == null || s.isBlank());
+            assertThat(digitCounts[i]).isEqualTo(s == null ? 0 : s.replaceAll("[^0-9]", "").length());
+            assertThat(allDigits[i]).isEqualTo(s != null && StringUtils.digitsOnlyOrNull(s) == s);
+            assertThat(equal[i]).as(s + " / " + o).isEqualTo(s == null ? o == null : o != null && s.equalsIgnoreCase(o));
+        }
+    }
+
+    @Test
+    void vectorAndScalarKernelsAgree() {
+        var random = new Random(7);
+        var scalar = ScalarStringKernels.INSTANCE;
+        var vector = new VectorStringKernels();
+        for (int i = 0; i < 5_000; i++) {
+            String a = randomString(random, i % 100);
+            String b = i % 2 == 0 ? a.toUpperCase() : randomString(random, a.length());
+            assertThat(vector.isBlank(a)).isEqualTo(scalar.isBlank(a));
+            assertThat(vector.countDigits(a)).isEqualTo(scalar.countDigits(a));
+            assertThat(vector.equalsIgnoreCase(a, b)).as(a + " / " + b).isEqualTo(scalar.equalsIgnoreCase(a, b));
+        }
+        assertThat(vector.isBlank(" ".repeat(100) + "\u2003")).isTrue();
+        assertThat(vector.isBlank(" ".repeat(100) + "\u00A0")).isFalse();
+        assertThat(vector.equalsIgnoreCase("x".repeat(40) + "\u212A", "x".repeat(40) + "k")).isTrue();
+    }
+
+    @Test
+    void columnsMustHaveTheSameLength() {
+        assertThatThrownBy(() -> StringColumns.equalsIgnoreCase(new String[1], new String[2]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
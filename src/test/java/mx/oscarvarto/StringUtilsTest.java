@@ -0,0 +1,151 @@
+package mx.oscarvarto;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import fj.Show;
+import fj.data.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static fj.Show.listShow;
+import static fj.Show.longShow;
+import static fj.data.List.list;
+import static mx.oscarvarto.StringUtils.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringUtilsTest {
+
+    @Test
+    void getDigitsOnlyTest() {
+        assertThat(getDigitsOnly("+52 (55) 1234-5678").some()).isEqualTo("525512345678");
+        assertThat(getDigitsOnly("no digits")).isEmpty();
+        assertThat(getDigitsOnly("")).isEmpty();
+        assertThat(getDigitsOnly(null)).isEmpty();
+    }
+
+    @Test
+    void allDigitsInputIsNotCopied() {
+        var digits = "0123456789";
+        assertThat(digitsOnlyOrNull(digits)).isSameAs(digits);
+    }
+
+    @Test
+    void digitsIntoCallerBuffers() {
+        var dest = new char[16];
+        int count = digitsOnly("ID: 00-123", dest);
+        assertThat(new String(dest, 0, count)).isEqualTo("00123");
+
+        var sb = new StringBuilder("tel:");
+        assertThat(appendDigitsOnly("55 1234", sb)).isEqualTo(6);
+        assertThat(sb.toString()).isEqualTo("tel:551234");
+    }
+
+    @Test
+    void digitsOnlyAsLongTest() {
+        assertThat(digitsOnlyAsLong("(55) 1234-5678")).isEqualTo(5512345678L);
+        assertThat(digitsOnlyAsLong("abc")).isEqualTo(NO_DIGITS);
+        assertThat(digitsOnlyAsLong("9223372036854775807")).isEqualTo(Long.MAX_VALUE);
+        assertThat(digitsOnlyAsLong("9223372036854775808")).isEqualTo(NO_DIGITS);
+    }
+
+    @Test
+    void bulkDigitsOnly() {
+        @Nullable String[] column = {"a1b2", null, "xyz", "42"};
+        assertThat(digitsOnlyColumn(column)).containsExactly("12", null, null, "42");
+        assertThat(digitsOnlyColumn(list("a1b2", "xyz"))).containsExactly("12", null);
+        assertThat(digitsOnlyAsLongColumn(column)).containsExactly(12L, NO_DIGITS, NO_DIGITS, 42L);
+    }
+
+    @Test
+    void unlimitedPrettyPrintIsUnchanged() {
+        assertThat(prettyPrint(java.util.List.of("a", "b", "c"))).isEqualTo("[a, b, c]");
+        assertThat(prettyPrint(java.util.Arrays.asList("a", null, "c"))).isEqualTo("[a, c]");
+        assertThat(pprint(list(1L, 2L, 3L), longShow)).isEqualTo(listShow(longShow).showS(list(1L, 2L, 3L)));
+        assertThat(pprint(List.<Long>nil(), longShow)).isEqualTo("List()");
+    }
+
+    @Test
+    void boundedPrettyPrint() {
+        var numbers = LongStream.range(0, 10_000).boxed().toList();
+        assertThat(prettyPrint(numbers, 3, UNLIMITED)).isEqualTo("[0, 1, 2, ... and 9,997 more]");
+        assertThat(pprint(numbers, longShow, 2, UNLIMITED)).isEqualTo("List(0,1,... and 9,998 more)");
+        assertThat(prettyPrint(numbers, 0, UNLIMITED)).isEqualTo("[... and 10,000 more]");
+        // The element that does not fit is cut
+        assertThat(prettyPrint(java.util.List.of("abcdef", "ghijkl", "mn"), UNLIMITED, 9))
+                .isEqualTo("[abcdef, g..., ... and 1 more]");
+    }
+
+    @Test
+    void boundedPrettyPrintCountsWhatIsLeftOut() {
+        assertThat(pprint(list(1L, 2L, 3L), longShow, 1, UNLIMITED)).isEqualTo("List(1,... and 2 more)");
+        // Nulls are not shown, so they are not counted either
+        assertThat(prettyPrint(java.util.Arrays.asList("a", null, "b", null, "c"), 1, UNLIMITED))
+                .isEqualTo("[a, ... and 2 more]");
+        assertThat(prettyPrint(java.util.Arrays.asList("a", null), 1, UNLIMITED)).isEqualTo("[a]");
+        // Unbounded Iterables are counted up to MAX_COUNTED
+        Iterable<Long> naturals = () -> LongStream.iterate(0, n -> n + 1).boxed().iterator();
+        assertThat(pprint(naturals, longShow, 3, UNLIMITED)).isEqualTo("List(0,1,2,... and 1,000,000+ more)");
+    }
+
+    @Test
+    void prettyPrintToAppendable() throws IOException {
+        var sb = new StringBuilder("values: ");
+        pprint(sb, list(7L, 8L, 9L), longShow, 1, UNLIMITED);
+        assertThat(sb.toString()).isEqualTo("values: List(7,... and 2 more)");
+    }
+
+    @Test
+    void lazyRenderingIsSameAsEager() {
+        var numbers = LongStream.range(0, 100).boxed().toList();
+        assertThat(lazyPretty(numbers, 3, UNLIMITED).toString()).isEqualTo(prettyPrint(numbers, 3, UNLIMITED));
+        assertThat(lazyPretty(java.util.Arrays.asList("a", null, "c")).toString()).isEqualTo("[a, c]");
+        assertThat(lazyPprint(list(1L, 2L, 3L), longShow).toString()).isEqualTo("List(1,2,3)");
+        assertThat(lazyFormat("{} of {}", 1, null).toString()).isEqualTo("1 of null");
+        assertThat(lazyFormat("Filtered: {}", lazyPretty(java.util.List.of("a", "b"))).toString())
+                .isEqualTo("Filtered: [a, b]");
+    }
+
+    @Test
+    void nestedRenderingGetsItsOwnBuffer() {
+        Show<List<Long>> inner = Show.showS(ls -> pprint(ls, longShow));
+        assertThat(pprint(list(list(1L, 2L), list(3L)), inner)).isEqualTo("List(List(1,2),List(3))");
+    }
+
+    @Test
+    void nothingIsRenderedWhenTheLevelIsDisabled() {
+        var logger = (Logger) LoggerFactory.getLogger("mx.oscarvarto.StringUtilsTest.lazy");
+        var appender = new ListAppender<ILoggingEvent>();
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        var shown = new AtomicInteger();
+        Show<Long> counting = Show.showS(l -> {
+            shown.incrementAndGet();
+            return l.toString();
+        });
+        var numbers = list(1L, 2L, 3L);
+        try {
+            logger.setLevel(Level.WARN);
+            logger.info("Numbers: {}", lazyPprint(numbers, counting));
+            logger.debug("{}", lazyFormat("Numbers: {}", lazyPprint(numbers, counting)));
+            assertThat(appender.list).isEmpty();
+            assertThat(shown.get()).isZero();
+
+            logger.setLevel(Level.INFO);
+            logger.info("Numbers: {}", lazyPprint(numbers, counting));
+            assertThat(appender.list).hasSize(1);
+            assertThat(appender.list.get(0).getFormattedMessage()).isEqualTo("Numbers: List(1,2,3)");
+            assertThat(shown.get()).isEqualTo(3);
+        } finally {
+            logger.detachAppender(appender);
+            logger.setLevel(null);
+        }
+    }
+}
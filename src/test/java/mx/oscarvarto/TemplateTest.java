@@ -0,0 +1,49 @@
+package mx.oscarvarto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static mx.oscarvarto.StringUtils.format;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TemplateTest {
+
+    @Test
+    void replacesPlaceholdersInOrder() {
+        assertThat(format("Hello {}, you are {} years old", "Luke", "32"))
+                .isEqualTo("Hello Luke, you are 32 years old");
+    }
+
+    @Test
+    void missingArgumentsKeepPlaceholders() {
+        assertThat(format("{} and {} and {}", "a")).isEqualTo("a and {} and {}");
+    }
+
+    @Test
+    void extraArgumentsAreIgnored() {
+        assertThat(format("only {}", "one", "two", "three")).isEqualTo("only one");
+        assertThat(format("no placeholders", "one")).isEqualTo("no placeholders");
+    }
+
+    @Test
+    void argumentsAreInsertedVerbatim() {
+        // The regex based implementation interpreted '$' and '\' in the arguments
+        assertThat(format("price: {}", "$1.00 \\o/")).isEqualTo("price: $1.00 \\o/");
+    }
+
+    @Test
+    void compiledTemplatesAreCached() {
+        var template = Template.compile("{} -> {}");
+        assertThat(Template.compile("{} -> {}")).isSameAs(template);
+        assertThat(template.placeholders()).isEqualTo(2);
+        assertThat(template.render("a", "b")).isEqualTo("a -> b");
+    }
+
+    @Test
+    void longArgumentListsDoNotOverflowTheStack() {
+        var args = new String[100_000];
+        Arrays.fill(args, "x");
+        assertThat(format("{}".repeat(args.length), args)).isEqualTo("x".repeat(args.length));
+    }
+}
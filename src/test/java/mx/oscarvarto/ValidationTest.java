@@ -1,12 +1,20 @@
 package mx.oscarvarto;
 
+import fj.F;
 import fj.data.NonEmptyList;
 import fj.data.Validation;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static fj.Semigroup.nonEmptyListSemigroup;
+import static fj.data.List.list;
 import static fj.data.Validation.condition;
+import static mx.oscarvarto.RuleSet.Mode.ACCUMULATE;
+import static mx.oscarvarto.RuleSet.Mode.FAIL_FAST;
 import static mx.oscarvarto.ValidationConstants.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -46,6 +54,170 @@ public class ValidationTest {
         assertThat(person).isEqualTo(new Person("Luke Skywalker", 32));
     }
 
+    // The rules of PersonValidator, declared once
+    private static final RuleSet<PersonValidator> personRules = RuleSet.<PersonValidator>ruleSet()
+            .rule(p -> !p.name().isBlank(), NAME_EMPTY_OR_WHITESPACE_ERROR_MSG)
+            .rule(p -> p.age() >= 0, NEGATIVE_AGE_ERROR_MSG)
+            .rule(p -> p.age() <= MAX_AGE, MAX_AGE_ERROR_MSG);
+
+    @Test
+    void ruleSetTest1() {
+        var invalid = new PersonValidator("  ", -5);
+        assertThat(personRules.firstFailure(invalid)).isEqualTo(0);
+        assertThat(RuleSet.ruleIds(personRules.failures(invalid))).containsExactly(0, 1);
+        assertThat(personRules.validate(invalid, ACCUMULATE).fail()).containsExactly(
+                NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                NEGATIVE_AGE_ERROR_MSG);
+        assertThat(personRules.validate(invalid, FAIL_FAST).fail())
+                .containsExactly(NAME_EMPTY_OR_WHITESPACE_ERROR_MSG);
+
+        var valid = new PersonValidator("Luke Skywalker", 32);
+        assertThat(personRules.firstFailure(valid)).isEqualTo(RuleSet.VALID);
+        assertThat(personRules.failures(valid)).isEqualTo(RuleSet.NO_FAILURES);
+        assertThat(personRules.validate(valid, ACCUMULATE).success()).isEqualTo(valid);
+    }
+
+    @Test
+    void ruleSetBatchTest() {
+        var records = list(
+                new PersonValidator("Luke Skywalker", 32),
+                new PersonValidator("  ", -5),
+                new PersonValidator("Leia", 32),
+                new PersonValidator("Chabelo", 340));
+
+        var report = personRules.validateAll(records, ACCUMULATE);
+        assertThat(report.records()).isEqualTo(4);
+        assertThat(report.validCount()).isEqualTo(2);
+        assertThat(report.failedCount()).isEqualTo(2);
+        assertThat(report.failedRecord(0)).isEqualTo(1);
+        assertThat(report.messages(0)).containsExactly(
+                NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                NEGATIVE_AGE_ERROR_MSG);
+        assertThat(report.failedRecord(1)).isEqualTo(3);
+        assertThat(report.messages(1)).containsExactly(MAX_AGE_ERROR_MSG);
+        assertThat(report.failuresOf(2)).isEqualTo(RuleSet.NO_FAILURES);
+
+        var failFast = personRules.validateAll(records, FAIL_FAST);
+        assertThat(failFast.messages(0)).containsExactly(NAME_EMPTY_OR_WHITESPACE_ERROR_MSG);
+    }
+
+    // Stands for a rule that looks something up and blocks while doing so
+    private static <T> F<T, Boolean> slow(long millis, F<T, Boolean> check) {
+        return t -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return check.f(t);
+        };
+    }
+
+    // Blocks until released, counting down cancelled if it is interrupted first
+    private static <T> F<T, Boolean> blocked(CountDownLatch release, CountDownLatch cancelled, F<T, Boolean> check) {
+        return t -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return check.f(t);
+        };
+    }
+
+    // Every rule waits until all of them are running. Run one after the other, the first one would
+    // wait alone and fail.
+    private static <T> F<T, Boolean> together(CountDownLatch running, F<T, Boolean> check) {
+        return t -> {
+            running.countDown();
+            try {
+                if (!running.await(4, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Rules did not run concurrently");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return check.f(t);
+        };
+    }
+
+    private static final String TIMEOUT_MSG = "Lookup timed out";
+
+    private static final ConcurrentRules<PersonValidator, String> concurrentPersonRules =
+            ConcurrentRules.<PersonValidator, String>concurrentRules()
+                    .condition(slow(200, p -> !p.name().isBlank()), NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                            Duration.ofSeconds(5), TIMEOUT_MSG)
+                    .condition(slow(100, p -> p.age() >= 0), NEGATIVE_AGE_ERROR_MSG,
+                            Duration.ofSeconds(5), TIMEOUT_MSG)
+                    .condition(slow(10, p -> p.age() <= MAX_AGE), MAX_AGE_ERROR_MSG,
+                            Duration.ofSeconds(5), TIMEOUT_MSG);
+
+    @Test
+    void concurrentRulesTest() throws InterruptedException {
+        var invalid = concurrentPersonRules.validate(new PersonValidator("  ", -5), ACCUMULATE);
+        // Same errors, in the same order, as PersonValidator.validate
+        assertThat(invalid.fail()).containsExactly(
+                NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                NEGATIVE_AGE_ERROR_MSG);
+
+        // Rules run concurrently: all three are running at the same time
+        var running = new CountDownLatch(3);
+        var together = ConcurrentRules.<PersonValidator, String>concurrentRules()
+                .condition(together(running, p -> !p.name().isBlank()), NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG)
+                .condition(together(running, p -> p.age() >= 0), NEGATIVE_AGE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG)
+                .condition(together(running, p -> p.age() <= MAX_AGE), MAX_AGE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG);
+        assertThat(together.validate(new PersonValidator("  ", -5), ACCUMULATE).fail()).containsExactly(
+                NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                NEGATIVE_AGE_ERROR_MSG);
+
+        // The age rule fails while the name rule is still blocked, so it wins and the name rule is
+        // cancelled
+        var release = new CountDownLatch(1);
+        var cancelled = new CountDownLatch(1);
+        var blockedName = ConcurrentRules.<PersonValidator, String>concurrentRules()
+                .condition(blocked(release, cancelled, p -> !p.name().isBlank()), NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG)
+                .condition(p -> p.age() >= 0, NEGATIVE_AGE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG)
+                .condition(p -> p.age() <= MAX_AGE, MAX_AGE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG);
+        assertThat(blockedName.validate(new PersonValidator("  ", -5), FAIL_FAST).fail())
+                .containsExactly(NEGATIVE_AGE_ERROR_MSG);
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+
+        var valid = new PersonValidator("Luke Skywalker", 32);
+        assertThat(concurrentPersonRules.validate(valid, FAIL_FAST).success()).isEqualTo(valid);
+    }
+
+    @Test
+    void concurrentRulesTimeoutTest() throws InterruptedException {
+        // The first rule never finishes on its own, the second one has all the time it needs
+        var never = new CountDownLatch(1);
+        var rules = ConcurrentRules.<PersonValidator, String>concurrentRules()
+                .condition(blocked(never, new CountDownLatch(1), p -> true), NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                        Duration.ofMillis(50), TIMEOUT_MSG)
+                .condition(p -> p.age() <= MAX_AGE, MAX_AGE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG);
+        var chabelo = new PersonValidator("Chabelo", 340);
+        assertThat(rules.validate(chabelo, ACCUMULATE).fail()).containsExactly(TIMEOUT_MSG, MAX_AGE_ERROR_MSG);
+        assertThat(rules.validate(new PersonValidator("Leia", 32), FAIL_FAST).fail()).containsExactly(TIMEOUT_MSG);
+
+        // A rule that fails wins over one that is still blocked and has not run out of time
+        var patient = ConcurrentRules.<PersonValidator, String>concurrentRules()
+                .condition(blocked(never, new CountDownLatch(1), p -> true), NAME_EMPTY_OR_WHITESPACE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG)
+                .condition(p -> p.age() <= MAX_AGE, MAX_AGE_ERROR_MSG,
+                        Duration.ofSeconds(5), TIMEOUT_MSG);
+        assertThat(patient.validate(chabelo, FAIL_FAST).fail()).containsExactly(MAX_AGE_ERROR_MSG);
+    }
+
     record PersonValidator(String name, int age) {
         public Validation<NonEmptyList<ErrorMsg>, Person> validate() {
             // Validation rules